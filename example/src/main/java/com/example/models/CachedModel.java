@@ -0,0 +1,23 @@
+package com.example.models;
+
+import com.orm.SugarRecord;
+import com.orm.dsl.Cacheable;
+
+@Cacheable(maxEntries = 10)
+public class CachedModel extends SugarRecord {
+    private String name;
+
+    public CachedModel() {}
+
+    public CachedModel(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
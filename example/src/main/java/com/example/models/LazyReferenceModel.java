@@ -0,0 +1,18 @@
+package com.example.models;
+
+import com.orm.Ref;
+import com.orm.SugarRecord;
+
+public class LazyReferenceModel extends SugarRecord {
+    private Ref<SimpleExtendedModel> simple;
+
+    public LazyReferenceModel() {}
+
+    public LazyReferenceModel(SimpleExtendedModel simple) {
+        this.simple = Ref.of(simple);
+    }
+
+    public Ref<SimpleExtendedModel> getSimple() {
+        return simple;
+    }
+}
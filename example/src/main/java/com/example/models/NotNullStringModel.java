@@ -0,0 +1,19 @@
+package com.example.models;
+
+import com.orm.SugarRecord;
+import com.orm.dsl.NotNull;
+
+public class NotNullStringModel extends SugarRecord {
+    @NotNull
+    private String string;
+
+    public NotNullStringModel() {}
+
+    public NotNullStringModel(String string) {
+        this.string = string;
+    }
+
+    public String getString() {
+        return string;
+    }
+}
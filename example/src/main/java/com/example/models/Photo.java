@@ -0,0 +1,23 @@
+package com.example.models;
+
+import com.orm.SugarRecord;
+
+public class Photo extends SugarRecord {
+    private String title;
+    private byte[] thumbnail;
+
+    public Photo() {}
+
+    public Photo(String title, byte[] thumbnail) {
+        this.title = title;
+        this.thumbnail = thumbnail;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public byte[] getThumbnail() {
+        return thumbnail;
+    }
+}
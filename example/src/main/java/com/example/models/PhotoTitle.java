@@ -0,0 +1,16 @@
+package com.example.models;
+
+public class PhotoTitle {
+    private Long id;
+    private String title;
+
+    public PhotoTitle() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+}
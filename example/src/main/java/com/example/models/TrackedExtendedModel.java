@@ -0,0 +1,33 @@
+package com.example.models;
+
+import com.orm.SugarRecord;
+import com.orm.dsl.TrackChanges;
+
+@TrackChanges
+public class TrackedExtendedModel extends SugarRecord {
+    private String string;
+    private Integer integer;
+
+    public TrackedExtendedModel() {}
+
+    public TrackedExtendedModel(String string, Integer integer) {
+        this.string = string;
+        this.integer = integer;
+    }
+
+    public String getString() {
+        return string;
+    }
+
+    public void setString(String string) {
+        this.string = string;
+    }
+
+    public Integer getInteger() {
+        return integer;
+    }
+
+    public void setInteger(Integer integer) {
+        this.integer = integer;
+    }
+}
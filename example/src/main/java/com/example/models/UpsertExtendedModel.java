@@ -0,0 +1,23 @@
+package com.example.models;
+
+import com.orm.SugarRecord;
+import com.orm.dsl.Upsert;
+
+@Upsert
+public class UpsertExtendedModel extends SugarRecord {
+    private String string;
+
+    public UpsertExtendedModel() {}
+
+    public UpsertExtendedModel(String string) {
+        this.string = string;
+    }
+
+    public String getString() {
+        return string;
+    }
+
+    public void setString(String string) {
+        this.string = string;
+    }
+}
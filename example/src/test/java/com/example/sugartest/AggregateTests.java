@@ -0,0 +1,121 @@
+package com.example.sugartest;
+
+import com.example.models.SimpleModel;
+import com.orm.query.Aggregate;
+import com.orm.query.AggregateResult;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class AggregateTests {
+    private static void saveModel(String str, int integer) {
+        SimpleModel model = new SimpleModel();
+        model.setStr(str);
+        model.setInteger(integer);
+        save(model);
+    }
+
+    @Test
+    public void scalarTest() {
+        saveModel("a", 1);
+        saveModel("a", 2);
+        saveModel("b", 6);
+
+        Select<SimpleModel> select = Select.from(SimpleModel.class);
+        assertEquals(9.0, select.sum("integer"), 0.0);
+        assertEquals(3.0, select.avg("integer"), 0.0);
+        assertEquals(1.0, select.min("integer"), 0.0);
+        assertEquals(6.0, select.max("integer"), 0.0);
+        assertEquals(3.0, Select.from(SimpleModel.class).where(Condition.prop("STR").eq("a")).sum("integer"), 0.0);
+    }
+
+    @Test
+    public void emptyTest() {
+        Select<SimpleModel> select = Select.from(SimpleModel.class);
+        assertEquals(0.0, select.sum("integer"), 0.0);
+        assertTrue(Double.isNaN(select.avg("integer")));
+        assertTrue(Double.isNaN(select.max("integer")));
+    }
+
+    @Test
+    public void groupTest() {
+        saveModel("a", 1);
+        saveModel("a", 2);
+        saveModel("b", 6);
+        saveModel("c", 1);
+
+        AggregateResult result = Select.from(SimpleModel.class).groupBy("STR").orderBy("STR")
+                .aggregate(Aggregate.SUM, "integer");
+        assertArrayEquals(new String[] {"a", "b", "c"}, result.getKeys());
+        assertEquals(3.0, result.get("a"), 0.0);
+        assertEquals(6.0, result.getValue(1), 0.0);
+    }
+
+    @Test
+    public void havingTest() {
+        saveModel("a", 1);
+        saveModel("a", 2);
+        saveModel("b", 6);
+
+        AggregateResult result = Select.from(SimpleModel.class).groupBy("STR")
+                .having("COUNT(*) > ?", "1").aggregate(Aggregate.COUNT, null);
+        assertEquals(1, result.size());
+        assertEquals(Arrays.asList("a"), result.getKey(0));
+        assertEquals(2.0, result.getValue(0), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingGroupByTest() {
+        Select.from(SimpleModel.class).aggregate(Aggregate.SUM, "integer");
+    }
+
+    @Test
+    public void multipleColumnsGroupTest() {
+        saveModel("a", 1);
+        saveModel("a", 2);
+        saveModel("b", 1);
+
+        AggregateResult result = Select.from(SimpleModel.class).groupBy("STR, INTEGER").orderBy("STR, INTEGER")
+                .aggregate(Aggregate.COUNT, null);
+        assertEquals(3, result.size());
+        assertEquals(Arrays.asList("a", "2"), result.getKey(1));
+        assertEquals(1.0, result.get("b", "1"), 0.0);
+    }
+
+    @Test
+    public void textMaxTest() {
+        saveModel("a", 1);
+
+        try {
+            Select.from(SimpleModel.class).max("str");
+            fail();
+        } catch (IllegalArgumentException e) {
+            //Expected, text can't be aggregated
+        }
+        assertEquals(1L, Select.from(SimpleModel.class).count());
+    }
+
+    @Test
+    public void countClausesTest() {
+        saveModel("a", 1);
+        saveModel("a", 2);
+        saveModel("b", 6);
+
+        assertEquals(2L, Select.from(SimpleModel.class).groupBy("STR").count());
+        assertEquals(1L, Select.from(SimpleModel.class).orderBy("INTEGER").limit("1").count());
+        assertEquals(3L, Select.from(SimpleModel.class).where(Condition.prop("BOOL").eq(false)).count());
+    }
+}
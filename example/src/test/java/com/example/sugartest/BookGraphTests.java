@@ -0,0 +1,103 @@
+package com.example.sugartest;
+
+import com.example.models.Author;
+import com.example.models.Book;
+import com.example.models.Page;
+import com.orm.SugarRecord;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class BookGraphTests {
+    private Book createBook(Author author, String title, int pageCount) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+
+        List<Page> pages = new ArrayList<>();
+        for (int i = 1; i <= pageCount; i++) {
+            Page page = new Page();
+            page.setPageNumber(i);
+            page.setText(title + " " + i);
+            page.setBook(book);
+            pages.add(page);
+        }
+        book.setPages(pages);
+
+        return book;
+    }
+
+    private List<Page> findPages(Book book) {
+        return SugarRecord.findByRelationship(Page.class, "BOOK_PAGE", "PAGE_ID", "BOOK_ID = " + book.getId(), null, null, null);
+    }
+
+    @Test
+    public void saveGraphTest() {
+        Author author = new Author();
+        author.setName("Author");
+        Book book = createBook(author, "Title", 3);
+        save(book);
+
+        assertNotNull(author.getId());
+        assertNotNull(book.getId());
+        assertEquals(1L, SugarRecord.count(Author.class));
+        assertEquals(1L, SugarRecord.count(Book.class));
+        assertEquals(3L, SugarRecord.count(Page.class));
+        assertEquals(3, findPages(book).size());
+
+        Book query = SugarRecord.findById(Book.class, book.getId());
+        assertEquals(author.getId(), query.getAuthor().getId());
+    }
+
+    @Test
+    public void saveGraphInTransactionTest() {
+        Author author = new Author();
+        author.setName("Author");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            books.add(createBook(author, "Title " + i, 5));
+        }
+        SugarRecord.saveInTx(books);
+
+        assertEquals(1L, SugarRecord.count(Author.class));
+        assertEquals(100L, SugarRecord.count(Book.class));
+        assertEquals(500L, SugarRecord.count(Page.class));
+
+        for (Book book : books) {
+            List<Page> pages = findPages(book);
+            assertEquals(5, pages.size());
+            for (Page page : pages) {
+                assertEquals(book.getId(), page.getBook().getId());
+            }
+            assertEquals(book.getTitle(), SugarRecord.findById(Book.class, book.getId()).getTitle());
+        }
+    }
+
+    @Test
+    public void resaveGraphTest() {
+        Author author = new Author();
+        author.setName("Author");
+        Book book = createBook(author, "Title", 3);
+        save(book);
+        long bookId = book.getId();
+
+        book.setTitle("Another title");
+        save(book);
+
+        assertEquals(bookId, book.getId().longValue());
+        assertEquals(1L, SugarRecord.count(Book.class));
+        assertEquals(3L, SugarRecord.count(Page.class));
+        assertEquals(3, findPages(book).size());
+        assertEquals("Another title", SugarRecord.findById(Book.class, bookId).getTitle());
+    }
+}
@@ -4,6 +4,8 @@ package com.example.sugartest;
 import com.example.models.BooleanFieldAnnotatedModel;
 import com.example.models.BooleanFieldExtendedModel;
 import com.orm.SugarRecord;
+import com.orm.query.Condition;
+import com.orm.query.Select;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -73,4 +75,12 @@ public class BooleanFieldTests {
         BooleanFieldAnnotatedModel model = SugarRecord.findById(BooleanFieldAnnotatedModel.class, 1);
         assertEquals(true, model.getRawBoolean());
     }
+
+    @Test
+    public void deleteBooleanConditionTest() {
+        SugarRecord.saveInTx(new BooleanFieldExtendedModel(true), new BooleanFieldExtendedModel(false));
+
+        assertEquals(1, Select.from(BooleanFieldExtendedModel.class).where(Condition.prop("RAW_BOOLEAN").eq(true)).delete());
+        assertEquals(false, SugarRecord.first(BooleanFieldExtendedModel.class).getRawBoolean());
+    }
 }
@@ -0,0 +1,69 @@
+package com.example.sugartest;
+
+import com.example.models.BooleanFieldExtendedModel;
+import com.example.models.IntegerFieldExtendedModel;
+import com.orm.SugarRecord;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+import com.orm.query.Update;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class BulkUpdateTests {
+    @Test
+    public void updateConditionTest() {
+        List<IntegerFieldExtendedModel> models = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            models.add(new IntegerFieldExtendedModel(i));
+        }
+        SugarRecord.saveInTx(models);
+
+        int rows = Update.table(IntegerFieldExtendedModel.class)
+                .set("INTEGER", 0)
+                .where(Condition.prop("RAW_INTEGER").gt(40))
+                .execute();
+
+        assertEquals(60, rows);
+        assertEquals(60L, Select.from(IntegerFieldExtendedModel.class).where(Condition.prop("INTEGER").eq(0)).count());
+    }
+
+    @Test
+    public void updateAllTest() {
+        SugarRecord.saveInTx(new IntegerFieldExtendedModel(1), new IntegerFieldExtendedModel(2));
+
+        assertEquals(2, Update.table(IntegerFieldExtendedModel.class).set("RAW_INTEGER", 7).execute());
+        assertEquals(7, SugarRecord.findById(IntegerFieldExtendedModel.class, 2).getInt());
+    }
+
+    @Test
+    public void updateNoMatchTest() {
+        SugarRecord.save(new IntegerFieldExtendedModel(1));
+
+        assertEquals(0, Update.table(IntegerFieldExtendedModel.class)
+                .set("RAW_INTEGER", 7)
+                .where(Condition.prop("RAW_INTEGER").eq(2))
+                .execute());
+    }
+
+    @Test
+    public void updateBooleanConditionTest() {
+        SugarRecord.saveInTx(new BooleanFieldExtendedModel(true), new BooleanFieldExtendedModel(false));
+
+        int rows = Update.table(BooleanFieldExtendedModel.class)
+                .set("RAW_BOOLEAN", false)
+                .where(Condition.prop("RAW_BOOLEAN").eq(true))
+                .execute();
+
+        assertEquals(1, rows);
+        assertEquals(0L, Select.from(BooleanFieldExtendedModel.class).where(Condition.prop("RAW_BOOLEAN").eq(true)).count());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.sugartest;
+
+import com.example.models.CachedModel;
+import com.orm.EntityCache;
+import com.orm.SugarRecord;
+import com.orm.SugarSession;
+import com.orm.SugarTransactionHelper;
+import com.orm.TransactionMode;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class CacheTests {
+    @Test
+    public void findByIdTest() {
+        save(new CachedModel("first"));
+        EntityCache entityCache = EntityCache.of(CachedModel.class);
+        entityCache.resetCounters();
+
+        CachedModel model = SugarRecord.findById(CachedModel.class, 1);
+        assertSame(model, SugarRecord.findById(CachedModel.class, 1));
+        assertEquals(1L, entityCache.getHitCount());
+        assertEquals(1L, entityCache.getMissCount());
+    }
+
+    @Test
+    public void saveInvalidationTest() {
+        save(new CachedModel("first"));
+        CachedModel model = SugarRecord.findById(CachedModel.class, 1);
+
+        CachedModel changed = new CachedModel("changed");
+        changed.setId(1L);
+        save(changed);
+
+        CachedModel reloaded = SugarRecord.findById(CachedModel.class, 1);
+        assertNotSame(model, reloaded);
+        assertEquals("changed", reloaded.getName());
+    }
+
+    @Test
+    public void firstLastTest() {
+        save(new CachedModel("first"));
+        save(new CachedModel("last"));
+
+        assertSame(SugarRecord.first(CachedModel.class), SugarRecord.first(CachedModel.class));
+        assertSame(SugarRecord.last(CachedModel.class), SugarRecord.last(CachedModel.class));
+
+        save(new CachedModel("new last"));
+        assertEquals("new last", SugarRecord.last(CachedModel.class).getName());
+    }
+
+    @Test
+    public void sessionTest() {
+        save(new CachedModel("first"));
+        save(new CachedModel("last"));
+        SugarRecord.first(CachedModel.class);
+        SugarRecord.last(CachedModel.class);
+
+        SugarSession session = SugarSession.open();
+        try {
+            //The cached first entity is not the instance the session already holds for its row
+            CachedModel loaded = SugarRecord.find(CachedModel.class, "NAME = ?", "first").get(0);
+            assertSame(loaded, SugarRecord.first(CachedModel.class));
+
+            CachedModel last = SugarRecord.last(CachedModel.class);
+            assertTrue(session.contains(CachedModel.class, last.getId()));
+            assertSame(last, SugarRecord.findById(CachedModel.class, last.getId()));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void executeQueryInvalidationTest() {
+        save(new CachedModel("first"));
+        SugarRecord.findById(CachedModel.class, 1);
+
+        SugarRecord.executeQuery("DELETE FROM CACHED_MODEL");
+        assertNull(SugarRecord.findById(CachedModel.class, 1));
+    }
+
+    @Test
+    public void rollbackInvalidationTest() {
+        save(new CachedModel("first"));
+
+        try {
+            SugarTransactionHelper.doInTransaction(TransactionMode.IMMEDIATE, new SugarTransactionHelper.ResultCallback<Void>() {
+                @Override
+                public Void manipulateInTransaction() {
+                    CachedModel changed = new CachedModel("changed");
+                    changed.setId(1L);
+                    save(changed);
+
+                    //Caches the uncommitted row
+                    assertEquals("changed", SugarRecord.findById(CachedModel.class, 1).getName());
+                    throw new IllegalStateException("rolled back");
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("first", SugarRecord.findById(CachedModel.class, 1).getName());
+        }
+    }
+
+    @Test
+    public void uncachedClassTest() {
+        assertNull(EntityCache.of(String.class));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.sugartest;
+
+import com.example.models.SimpleModel;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class KeysetPaginationTests {
+    private static void saveModels(int count) {
+        for (int i = 0; i < count; i++) {
+            SimpleModel model = new SimpleModel();
+            model.setStr("model " + i);
+            //Repeated values, so pages have to break ties by id
+            model.setInteger(i % 4);
+            save(model);
+        }
+    }
+
+    private static List<Long> ids(List<SimpleModel> models) {
+        List<Long> ids = new ArrayList<>();
+        for (SimpleModel model : models) {
+            ids.add(model.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void pagesTest() {
+        saveModels(20);
+        List<Long> expected = ids(Select.from(SimpleModel.class).orderBy("INTEGER DESC, ID").list());
+
+        List<Long> paged = new ArrayList<>();
+        List<SimpleModel> page = Select.from(SimpleModel.class).orderBy("INTEGER DESC").limit("6").list();
+        while (!page.isEmpty()) {
+            paged.addAll(ids(page));
+            page = Select.from(SimpleModel.class).orderBy("INTEGER DESC").limit("6")
+                    .after(page.get(page.size() - 1)).list();
+        }
+
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    public void afterKeyTest() {
+        saveModels(8);
+
+        List<SimpleModel> page = Select.from(SimpleModel.class).orderBy("INTEGER")
+                .where(Condition.prop("INTEGER").gt(0))
+                .afterKey(6, 2).list();
+
+        //Row 7 is the only one with INTEGER 2 after id 6, then rows 4 and 8 have INTEGER 3
+        assertEquals(3, page.size());
+        assertEquals(Long.valueOf(7L), page.get(0).getId());
+        assertEquals(Long.valueOf(4L), page.get(1).getId());
+        assertEquals(Long.valueOf(8L), page.get(2).getId());
+    }
+}
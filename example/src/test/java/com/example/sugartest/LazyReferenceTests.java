@@ -0,0 +1,54 @@
+package com.example.sugartest;
+
+import com.example.models.LazyReferenceModel;
+import com.example.models.SimpleExtendedModel;
+import com.orm.Ref;
+import com.orm.SugarRecord;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class LazyReferenceTests {
+    @Test
+    public void lazyLoadTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new LazyReferenceModel(simple));
+
+        LazyReferenceModel model = SugarRecord.findById(LazyReferenceModel.class, 1);
+        Ref<SimpleExtendedModel> ref = model.getSimple();
+        assertFalse(ref.isLoaded());
+        assertEquals(simple.getId(), ref.getId());
+
+        assertEquals(simple.getId(), ref.get().getId());
+        assertTrue(ref.isLoaded());
+    }
+
+    @Test
+    public void missingReferenceTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        save(new LazyReferenceModel(simple));
+        simple.delete();
+
+        LazyReferenceModel model = SugarRecord.findById(LazyReferenceModel.class, 1);
+        assertNull(model.getSimple().get());
+    }
+
+    @Test
+    public void nullReferenceTest() {
+        save(new LazyReferenceModel());
+
+        LazyReferenceModel model = SugarRecord.findById(LazyReferenceModel.class, 1);
+        assertNull(model.getSimple());
+    }
+}
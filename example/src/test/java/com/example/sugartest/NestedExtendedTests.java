@@ -13,6 +13,8 @@ import java.util.List;
 
 import static com.orm.SugarRecord.save;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 
 @RunWith(RobolectricGradleTestRunner.class)
@@ -128,4 +130,33 @@ public class NestedExtendedTests {
             assertEquals(model.getId(), model.getNested().getSimple().getId());
         }
     }
+
+    @Test
+    public void listAllSharedReferenceTest() throws Exception {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        RelationshipExtendedModel nested = new RelationshipExtendedModel(simple);
+        save(nested);
+        for (int i = 1; i <= 10; i++) {
+            save(new NestedExtendedModel(nested));
+        }
+        List<NestedExtendedModel> models = SugarRecord.listAll(NestedExtendedModel.class);
+        assertEquals(10, models.size());
+        for (NestedExtendedModel model : models) {
+            assertSame(models.get(0).getNested(), model.getNested());
+        }
+    }
+
+    @Test
+    public void listAllMissingReferenceTest() throws Exception {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        RelationshipExtendedModel nested = new RelationshipExtendedModel(simple);
+        save(nested);
+        save(new NestedExtendedModel(nested));
+        simple.delete();
+        List<NestedExtendedModel> models = SugarRecord.listAll(NestedExtendedModel.class);
+        assertEquals(nested.getId(), models.get(0).getNested().getId());
+        assertNull(models.get(0).getNested().getSimple());
+    }
 }
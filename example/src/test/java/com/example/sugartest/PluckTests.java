@@ -0,0 +1,54 @@
+package com.example.sugartest;
+
+import com.example.models.DoubleFieldExtendedModel;
+import com.example.models.IntegerFieldExtendedModel;
+import com.example.models.StringFieldExtendedModel;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class PluckTests {
+    @Test
+    public void pluckLongsTest() {
+        for (int i = 1; i <= 5; i++) {
+            save(new IntegerFieldExtendedModel(i * 10));
+        }
+
+        assertArrayEquals(new long[] {1, 2, 3, 4, 5}, Select.from(IntegerFieldExtendedModel.class).orderBy("ID").pluckLongs("id"));
+        assertArrayEquals(new long[] {50, 40}, Select.from(IntegerFieldExtendedModel.class)
+                .where(Condition.prop("RAW_INTEGER").gt(30)).orderBy("RAW_INTEGER DESC").pluckLongs("rawInteger"));
+    }
+
+    @Test
+    public void pluckDoublesTest() {
+        save(new DoubleFieldExtendedModel(1.5));
+        save(new DoubleFieldExtendedModel(2.5));
+
+        double[] values = Select.from(DoubleFieldExtendedModel.class).orderBy("ID").pluckDoubles("rawDouble");
+        assertEquals(2, values.length);
+        assertEquals(1.5, values[0], 0.0);
+        assertEquals(2.5, values[1], 0.0);
+    }
+
+    @Test
+    public void pluckStringsTest() {
+        save(new StringFieldExtendedModel("first"));
+        save(new StringFieldExtendedModel(null));
+
+        assertArrayEquals(new String[] {"first", null}, Select.from(StringFieldExtendedModel.class).orderBy("ID").pluckStrings("string"));
+    }
+
+    @Test
+    public void pluckEmptyTest() {
+        assertEquals(0, Select.from(IntegerFieldExtendedModel.class).pluckLongs("id").length);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.sugartest;
+
+import com.example.models.Photo;
+import com.example.models.PhotoTitle;
+import com.example.models.TrackedExtendedModel;
+import com.orm.SugarRecord;
+import com.orm.query.Condition;
+import com.orm.query.Select;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class ProjectionTests {
+    @Test
+    public void columnsTest() {
+        save(new Photo("beach", new byte[] {1, 2, 3}));
+
+        List<Photo> photos = Select.from(Photo.class).columns("title").list();
+        assertEquals(1, photos.size());
+        assertEquals(Long.valueOf(1L), photos.get(0).getId());
+        assertEquals("beach", photos.get(0).getTitle());
+        assertNull(photos.get(0).getThumbnail());
+    }
+
+    @Test
+    public void columnsWhereTest() {
+        save(new Photo("beach", new byte[] {1}));
+        save(new Photo("forest", new byte[] {2}));
+
+        Photo photo = Select.from(Photo.class).columns("title")
+                .where(Condition.prop("TITLE").eq("forest")).first();
+        assertEquals(Long.valueOf(2L), photo.getId());
+        assertNull(photo.getThumbnail());
+    }
+
+    @Test
+    public void partialSaveTest() {
+        save(new Photo("beach", new byte[] {1, 2, 3}));
+        Photo photo = Select.from(Photo.class).columns("title").first();
+
+        try {
+            save(photo);
+            fail();
+        } catch (IllegalStateException e) {
+            //Expected, the thumbnail wasn't read
+        }
+        try {
+            SugarRecord.update(photo);
+            fail();
+        } catch (IllegalStateException e) {
+            //Expected, the thumbnail wasn't read
+        }
+
+        assertArrayEquals(new byte[] {1, 2, 3}, SugarRecord.findById(Photo.class, 1L).getThumbnail());
+    }
+
+    @Test
+    public void trackedPartialSaveTest() {
+        save(new TrackedExtendedModel("Test String", 1));
+        TrackedExtendedModel model = Select.from(TrackedExtendedModel.class).columns("string").first();
+        assertNull(model.getInteger());
+
+        model.setString("Changed");
+        save(model);
+
+        TrackedExtendedModel saved = SugarRecord.findById(TrackedExtendedModel.class, 1L);
+        assertEquals("Changed", saved.getString());
+        assertEquals(Integer.valueOf(1), saved.getInteger());
+    }
+
+    @Test
+    public void intoTest() {
+        save(new Photo("beach", new byte[] {1, 2, 3}));
+        save(new Photo("forest", new byte[] {4}));
+
+        List<PhotoTitle> titles = Select.from(Photo.class).orderBy("title DESC").into(PhotoTitle.class);
+        assertEquals(2, titles.size());
+        assertEquals("forest", titles.get(0).getTitle());
+        assertEquals(Long.valueOf(2L), titles.get(0).getId());
+    }
+
+    @Test
+    public void intoColumnsTest() {
+        save(new Photo("beach", new byte[] {1}));
+
+        List<PhotoTitle> titles = SugarRecord.findInto(PhotoTitle.class, Photo.class, new String[] {"title"}, null, null, null, null, null);
+        assertEquals("beach", titles.get(0).getTitle());
+        assertNull(titles.get(0).getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownPropertyTest() {
+        Select.from(Photo.class).columns("caption").list();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.sugartest;
+
+import com.example.models.NestedExtendedModel;
+import com.example.models.RelationshipExtendedModel;
+import com.example.models.SimpleExtendedModel;
+import com.example.models.StringFieldExtendedModel;
+import com.orm.QueryCache;
+import com.orm.SugarContext;
+import com.orm.SugarRecord;
+import com.orm.SugarSession;
+import com.orm.query.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class QueryCacheTests {
+    private QueryCache queryCache;
+
+    @Before
+    public void enableQueryCache() {
+        SugarContext.enableQueryCache(100, 0);
+        queryCache = SugarContext.getSugarContext().getQueryCache();
+    }
+
+    @After
+    public void disableQueryCache() {
+        SugarContext.disableQueryCache();
+    }
+
+    @Test
+    public void selectTest() {
+        save(new StringFieldExtendedModel("first"));
+        queryCache.resetCounters();
+
+        List<StringFieldExtendedModel> models = Select.from(StringFieldExtendedModel.class).list();
+        List<StringFieldExtendedModel> cached = Select.from(StringFieldExtendedModel.class).list();
+
+        assertNotSame(models, cached);
+        assertEquals(models.get(0).getId(), cached.get(0).getId());
+        assertEquals(1L, queryCache.getHitCount());
+        assertEquals(1L, queryCache.getMissCount());
+    }
+
+    @Test
+    public void copiesTest() {
+        save(new StringFieldExtendedModel("first"));
+        List<StringFieldExtendedModel> models = Select.from(StringFieldExtendedModel.class).list();
+        models.get(0).setString("changed");
+
+        List<StringFieldExtendedModel> cached = Select.from(StringFieldExtendedModel.class).list();
+        assertNotSame(models.get(0), cached.get(0));
+        assertEquals("first", cached.get(0).getString());
+        assertEquals(models.get(0).getId(), cached.get(0).getId());
+    }
+
+    @Test
+    public void referenceInvalidationTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        RelationshipExtendedModel relationship = new RelationshipExtendedModel(simple);
+        save(relationship);
+        save(new NestedExtendedModel(relationship));
+        assertEquals(1, Select.from(NestedExtendedModel.class).list().size());
+
+        //The cached nested models hold the relationship, which a save of its own table changes
+        queryCache.resetCounters();
+        save(new RelationshipExtendedModel(simple));
+        Select.from(NestedExtendedModel.class).list();
+        assertEquals(0L, queryCache.getHitCount());
+    }
+
+    @Test
+    public void countTest() {
+        save(new StringFieldExtendedModel("first"));
+        assertEquals(1L, SugarRecord.count(StringFieldExtendedModel.class));
+
+        queryCache.resetCounters();
+        assertEquals(1L, SugarRecord.count(StringFieldExtendedModel.class));
+        assertEquals(1L, queryCache.getHitCount());
+
+        save(new StringFieldExtendedModel("second"));
+        assertEquals(2L, SugarRecord.count(StringFieldExtendedModel.class));
+    }
+
+    @Test
+    public void argumentsTest() {
+        save(new StringFieldExtendedModel("first"));
+        save(new StringFieldExtendedModel("second"));
+
+        assertEquals("first", SugarRecord.find(StringFieldExtendedModel.class, "string = ?", "first").get(0).getString());
+        assertEquals("second", SugarRecord.find(StringFieldExtendedModel.class, "string = ?", "second").get(0).getString());
+    }
+
+    @Test
+    public void deleteInvalidationTest() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("first");
+        save(model);
+        assertEquals(1, Select.from(StringFieldExtendedModel.class).list().size());
+
+        SugarRecord.delete(model);
+        assertEquals(0, Select.from(StringFieldExtendedModel.class).list().size());
+    }
+
+    @Test
+    public void findWithQueryTest() {
+        save(new StringFieldExtendedModel("first"));
+        String query = "SELECT * FROM STRING_FIELD_EXTENDED_MODEL";
+        assertEquals(1, SugarRecord.findWithQuery(StringFieldExtendedModel.class, query).size());
+
+        queryCache.resetCounters();
+        assertEquals(1, SugarRecord.findWithQuery(StringFieldExtendedModel.class, query).size());
+        assertEquals(1L, queryCache.getHitCount());
+
+        SugarRecord.executeQuery("DELETE FROM STRING_FIELD_EXTENDED_MODEL");
+        assertEquals(0, SugarRecord.findWithQuery(StringFieldExtendedModel.class, query).size());
+    }
+
+    @Test
+    public void sessionBypassTest() {
+        save(new StringFieldExtendedModel("first"));
+        SugarSession session = SugarSession.open();
+        try {
+            queryCache.resetCounters();
+            Select.from(StringFieldExtendedModel.class).list();
+            Select.from(StringFieldExtendedModel.class).list();
+
+            assertEquals(0L, queryCache.getHitCount());
+            assertEquals(0, queryCache.size());
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.sugartest;
+
+import com.example.models.NestedExtendedModel;
+import com.example.models.RelationshipExtendedModel;
+import com.example.models.SimpleExtendedModel;
+import com.orm.SugarRecord;
+import com.orm.SugarSession;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class SessionTests {
+    @Test
+    public void findByIdTest() {
+        save(new SimpleExtendedModel());
+
+        SugarSession session = SugarSession.open();
+        try {
+            SimpleExtendedModel model = SugarRecord.findById(SimpleExtendedModel.class, 1);
+            assertSame(model, SugarRecord.findById(SimpleExtendedModel.class, 1));
+            assertSame(model, SugarRecord.listAll(SimpleExtendedModel.class).get(0));
+        } finally {
+            session.close();
+        }
+
+        assertNotSame(SugarRecord.findById(SimpleExtendedModel.class, 1), SugarRecord.findById(SimpleExtendedModel.class, 1));
+    }
+
+    @Test
+    public void savedEntityTest() {
+        SugarSession session = SugarSession.open();
+        try {
+            SimpleExtendedModel model = new SimpleExtendedModel();
+            save(model);
+            assertSame(model, SugarRecord.findById(SimpleExtendedModel.class, model.getId()));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void referenceTest() {
+        SimpleExtendedModel simple = new SimpleExtendedModel();
+        save(simple);
+        RelationshipExtendedModel nested = new RelationshipExtendedModel(simple);
+        save(nested);
+        save(new NestedExtendedModel(nested));
+
+        SugarSession session = SugarSession.open();
+        try {
+            RelationshipExtendedModel loaded = SugarRecord.findById(RelationshipExtendedModel.class, nested.getId());
+            List<NestedExtendedModel> models = SugarRecord.listAll(NestedExtendedModel.class);
+            assertSame(loaded, models.get(0).getNested());
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void deleteTest() {
+        save(new SimpleExtendedModel());
+
+        SugarSession session = SugarSession.open();
+        try {
+            SimpleExtendedModel model = SugarRecord.findById(SimpleExtendedModel.class, 1);
+            model.delete();
+            assertNull(SugarRecord.findById(SimpleExtendedModel.class, 1));
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.example.sugartest;
 
 import com.example.models.SimpleExtendedModel;
 import com.orm.SugarRecord;
+import com.orm.query.Condition;
+import com.orm.query.Select;
 import com.orm.util.NamingHelper;
 
 import org.junit.Test;
@@ -167,6 +169,27 @@ public class SimpleExtendedModelTests {
         assertEquals(0L, SugarRecord.count(SimpleExtendedModel.class));
     }
 
+    @Test
+    public void deleteInTransactionChunkedTest() throws Exception {
+        List<SimpleExtendedModel> models = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            models.add(new SimpleExtendedModel());
+        }
+        SugarRecord.saveInTx(models);
+        assertEquals(2500L, SugarRecord.count(SimpleExtendedModel.class));
+        assertEquals(2000, SugarRecord.deleteInTx(models.subList(0, 2000)));
+        assertEquals(500L, SugarRecord.count(SimpleExtendedModel.class));
+    }
+
+    @Test
+    public void selectDeleteTest() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            save(new SimpleExtendedModel());
+        }
+        assertEquals(90, Select.from(SimpleExtendedModel.class).where(Condition.prop("id").gt(10)).delete());
+        assertEquals(10L, SugarRecord.count(SimpleExtendedModel.class));
+    }
+
     @Test
     public void saveInTransactionTest() throws Exception {
         SugarRecord.saveInTx(new SimpleExtendedModel(), new SimpleExtendedModel());
@@ -1,6 +1,7 @@
 package com.example.sugartest;
 
 
+import com.example.models.NotNullStringModel;
 import com.example.models.StringFieldAnnotatedModel;
 import com.example.models.StringFieldExtendedModel;
 import com.orm.SugarRecord;
@@ -9,6 +10,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.orm.SugarRecord.save;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
@@ -45,4 +49,71 @@ public class StringFieldTests {
         StringFieldAnnotatedModel model = SugarRecord.findById(StringFieldAnnotatedModel.class, 1);
         assertEquals(string, model.getString());
     }
+
+    @Test
+    public void saveInTransactionExtendedTest() {
+        List<StringFieldExtendedModel> models = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            models.add(new StringFieldExtendedModel("String " + i));
+        }
+        SugarRecord.saveInTx(models);
+        assertEquals(1200L, SugarRecord.count(StringFieldExtendedModel.class));
+        for (StringFieldExtendedModel model : models) {
+            StringFieldExtendedModel query = SugarRecord.findById(StringFieldExtendedModel.class, model.getId());
+            assertEquals(model.getString(), query.getString());
+        }
+    }
+
+    @Test
+    public void saveInTransactionAnnotatedTest() {
+        List<StringFieldAnnotatedModel> models = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            models.add(new StringFieldAnnotatedModel("String " + i));
+        }
+        SugarRecord.saveInTx(models);
+        assertEquals(1200L, SugarRecord.count(StringFieldAnnotatedModel.class));
+        List<StringFieldAnnotatedModel> queried = SugarRecord.listAll(StringFieldAnnotatedModel.class, "ID");
+        for (int i = 0; i < models.size(); i++) {
+            assertEquals(models.get(i).getString(), queried.get(i).getString());
+        }
+    }
+
+    @Test
+    public void saveInTransactionExistingTest() {
+        StringFieldExtendedModel model = new StringFieldExtendedModel("Test String");
+        long id = save(model);
+        model.setString("Another test");
+        SugarRecord.saveInTx(model, new StringFieldExtendedModel("Second"));
+        assertEquals(2L, SugarRecord.count(StringFieldExtendedModel.class));
+        assertEquals(id, model.getId().longValue());
+        assertEquals("Another test", SugarRecord.findById(StringFieldExtendedModel.class, id).getString());
+    }
+
+    @Test
+    public void saveInTransactionBadRowTest() {
+        List<NotNullStringModel> models = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            models.add(new NotNullStringModel((i == 4) ? null : "String " + i));
+        }
+
+        //Only the row breaking the constraint is lost, not the rows sharing its statement
+        SugarRecord.saveInTx(models);
+        assertEquals(9L, SugarRecord.count(NotNullStringModel.class));
+        assertEquals(Long.valueOf(-1), models.get(4).getId());
+        assertEquals("String 5", SugarRecord.findById(NotNullStringModel.class, models.get(5).getId()).getString());
+    }
+
+    @Test
+    public void findWithReorderedColumnsTest() {
+        for (int i = 1; i <= 100; i++) {
+            save(new StringFieldExtendedModel("String " + i));
+        }
+
+        List<StringFieldExtendedModel> models = SugarRecord.findWithQuery(StringFieldExtendedModel.class,
+                "SELECT STRING, ID FROM STRING_FIELD_EXTENDED_MODEL ORDER BY ID DESC");
+        assertEquals(100, models.size());
+        assertEquals("String 100", models.get(0).getString());
+        assertEquals(Long.valueOf(100), models.get(0).getId());
+        assertEquals("String 1", models.get(99).getString());
+    }
 }
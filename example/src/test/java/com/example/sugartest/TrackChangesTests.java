@@ -0,0 +1,67 @@
+package com.example.sugartest;
+
+import com.example.models.TrackedExtendedModel;
+import com.orm.SugarRecord;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class TrackChangesTests {
+    @Test
+    public void unchangedUpdateTest() {
+        save(new TrackedExtendedModel("Test String", 1));
+        TrackedExtendedModel model = SugarRecord.findById(TrackedExtendedModel.class, 1);
+        assertEquals(0L, model.update());
+    }
+
+    @Test
+    public void changedColumnsUpdateTest() {
+        save(new TrackedExtendedModel("Test String", 1));
+        TrackedExtendedModel model = SugarRecord.findById(TrackedExtendedModel.class, 1);
+
+        //Written behind the loaded model's back, a full row write would revert it
+        SugarRecord.executeQuery("UPDATE TRACKED_EXTENDED_MODEL SET INTEGER = 2");
+
+        model.setString("Changed String");
+        assertEquals(1L, model.update());
+
+        TrackedExtendedModel updated = SugarRecord.findById(TrackedExtendedModel.class, 1);
+        assertEquals("Changed String", updated.getString());
+        assertEquals(Integer.valueOf(2), updated.getInteger());
+        assertEquals(1L, SugarRecord.count(TrackedExtendedModel.class));
+    }
+
+    @Test
+    public void changedColumnsSaveTest() {
+        TrackedExtendedModel model = new TrackedExtendedModel("Test String", 1);
+        save(model);
+
+        SugarRecord.executeQuery("UPDATE TRACKED_EXTENDED_MODEL SET STRING = 'Other String'");
+
+        model.setInteger(3);
+        save(model);
+
+        TrackedExtendedModel saved = SugarRecord.findById(TrackedExtendedModel.class, 1);
+        assertEquals("Other String", saved.getString());
+        assertEquals(Integer.valueOf(3), saved.getInteger());
+    }
+
+    @Test
+    public void deletedRowSaveTest() {
+        TrackedExtendedModel model = new TrackedExtendedModel("Test String", 1);
+        save(model);
+        SugarRecord.deleteAll(TrackedExtendedModel.class);
+
+        model.setString("Changed String");
+        save(model);
+
+        assertEquals(1L, SugarRecord.count(TrackedExtendedModel.class));
+        assertEquals("Changed String", SugarRecord.findById(TrackedExtendedModel.class, 1).getString());
+    }
+}
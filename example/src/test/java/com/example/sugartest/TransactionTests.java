@@ -0,0 +1,149 @@
+package com.example.sugartest;
+
+import com.example.models.Book;
+import com.example.models.Page;
+import com.example.models.StringFieldExtendedModel;
+import com.orm.SugarContext;
+import com.orm.SugarRecord;
+import com.orm.SugarTransactionHelper;
+import com.orm.TransactionMode;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class TransactionTests {
+    @Test
+    public void resultTest() {
+        long id = SugarTransactionHelper.doInTransaction(TransactionMode.IMMEDIATE, new SugarTransactionHelper.ResultCallback<Long>() {
+            @Override
+            public Long manipulateInTransaction() {
+                return save(new StringFieldExtendedModel("Test String"));
+            }
+        });
+
+        assertEquals(1L, id);
+        assertEquals(1L, SugarRecord.count(StringFieldExtendedModel.class));
+    }
+
+    @Test
+    public void failedTransactionTest() {
+        SugarTransactionHelper.doInTransaction(new SugarTransactionHelper.Callback() {
+            @Override
+            public void manipulateInTransaction() {
+                save(new StringFieldExtendedModel("Test String"));
+                throw new IllegalStateException();
+            }
+        });
+
+        assertEquals(0L, SugarRecord.count(StringFieldExtendedModel.class));
+    }
+
+    @Test
+    public void failedSavepointTest() {
+        SugarTransactionHelper.doInTransaction(TransactionMode.IMMEDIATE, new SugarTransactionHelper.Callback() {
+            @Override
+            public void manipulateInTransaction() {
+                save(new StringFieldExtendedModel("Outer String"));
+
+                SugarTransactionHelper.doInTransaction(new SugarTransactionHelper.Callback() {
+                    @Override
+                    public void manipulateInTransaction() {
+                        save(new StringFieldExtendedModel("Inner String"));
+                        throw new IllegalStateException();
+                    }
+                });
+
+                save(new StringFieldExtendedModel("Last String"));
+            }
+        });
+
+        assertEquals(2L, SugarRecord.count(StringFieldExtendedModel.class));
+        assertEquals("Outer String", SugarRecord.findById(StringFieldExtendedModel.class, 1).getString());
+        assertEquals(0L, SugarRecord.count(StringFieldExtendedModel.class, "STRING = ?", new String[]{"Inner String"}));
+    }
+
+    @Test
+    public void savepointTest() {
+        SugarTransactionHelper.doInTransaction(new SugarTransactionHelper.Callback() {
+            @Override
+            public void manipulateInTransaction() {
+                SugarTransactionHelper.doInTransaction(new SugarTransactionHelper.Callback() {
+                    @Override
+                    public void manipulateInTransaction() {
+                        save(new StringFieldExtendedModel("Inner String"));
+                    }
+                });
+            }
+        });
+
+        assertEquals(1L, SugarRecord.count(StringFieldExtendedModel.class));
+    }
+
+    @Test
+    public void rolledBackSavepointTest() {
+        //A result callback, so failed assertions are not swallowed
+        SugarTransactionHelper.doInTransaction(TransactionMode.IMMEDIATE, new SugarTransactionHelper.ResultCallback<Void>() {
+            @Override
+            public Void manipulateInTransaction() {
+                save(new StringFieldExtendedModel("Outer String"));
+
+                try {
+                    SugarTransactionHelper.doInTransaction(TransactionMode.IMMEDIATE, new SugarTransactionHelper.ResultCallback<Void>() {
+                        @Override
+                        public Void manipulateInTransaction() {
+                            save(new StringFieldExtendedModel("Inner String"));
+                            throw new IllegalStateException();
+                        }
+                    });
+                    fail();
+                } catch (IllegalStateException e) {
+                    //Expected, the failure is thrown once the savepoint is rolled back
+                }
+
+                //The rollback to the savepoint must not end the outer transaction
+                assertTrue(SugarContext.getSugarContext().getSugarDb().getDB().inTransaction());
+                assertEquals(1L, SugarRecord.count(StringFieldExtendedModel.class));
+                return null;
+            }
+        });
+
+        assertEquals(1L, SugarRecord.count(StringFieldExtendedModel.class));
+        assertEquals("Outer String", SugarRecord.findById(StringFieldExtendedModel.class, 1).getString());
+    }
+
+    @Test
+    public void failedSaveInTransactionTest() {
+        SugarTransactionHelper.doInTransaction(TransactionMode.IMMEDIATE, new SugarTransactionHelper.ResultCallback<Void>() {
+            @Override
+            public Void manipulateInTransaction() {
+                save(new StringFieldExtendedModel("Outer String"));
+
+                //Fails the join table rows of the book, after the book and its page are written
+                SugarRecord.executeQuery("CREATE TRIGGER REJECT_PAGES BEFORE INSERT ON BOOK_PAGE BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+                Book book = new Book();
+                Page page = new Page();
+                page.setBook(book);
+                book.setPages(Collections.singletonList(page));
+                SugarRecord.saveInTx(book);
+                SugarRecord.executeQuery("DROP TRIGGER REJECT_PAGES");
+
+                assertTrue(SugarContext.getSugarContext().getSugarDb().getDB().inTransaction());
+                assertEquals(0L, SugarRecord.count(Book.class));
+                return null;
+            }
+        });
+
+        assertEquals(1L, SugarRecord.count(StringFieldExtendedModel.class));
+        assertEquals(0L, SugarRecord.count(Page.class));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.sugartest;
+
+import com.example.models.UpsertExtendedModel;
+import com.orm.SugarRecord;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class UpsertTests {
+    @Test
+    public void resaveTest() {
+        UpsertExtendedModel model = new UpsertExtendedModel("Test String");
+        save(model);
+
+        model.setString("Changed String");
+        assertEquals(model.getId().longValue(), save(model));
+
+        assertEquals(1L, SugarRecord.count(UpsertExtendedModel.class));
+        assertEquals("Changed String", SugarRecord.findById(UpsertExtendedModel.class, model.getId()).getString());
+    }
+
+    @Test
+    public void missingRowSaveTest() {
+        UpsertExtendedModel model = new UpsertExtendedModel("Test String");
+        model.setId(5L);
+
+        assertEquals(5L, save(model));
+        assertEquals("Test String", SugarRecord.findById(UpsertExtendedModel.class, 5).getString());
+    }
+
+    @Test
+    public void resaveInTransactionTest() {
+        List<UpsertExtendedModel> models = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            models.add(new UpsertExtendedModel("String " + i));
+        }
+        SugarRecord.saveInTx(models);
+
+        for (UpsertExtendedModel model : models) {
+            model.setString(model.getString() + " changed");
+        }
+        UpsertExtendedModel added = new UpsertExtendedModel("Added String");
+        added.setId(200L);
+        models.add(added);
+        SugarRecord.saveInTx(models);
+
+        assertEquals(101L, SugarRecord.count(UpsertExtendedModel.class));
+        assertEquals("String 50 changed", SugarRecord.findById(UpsertExtendedModel.class, 50).getString());
+        assertEquals("Added String", SugarRecord.findById(UpsertExtendedModel.class, 200).getString());
+    }
+}
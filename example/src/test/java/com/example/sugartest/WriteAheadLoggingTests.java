@@ -0,0 +1,34 @@
+package com.example.sugartest;
+
+import com.example.models.StringFieldExtendedModel;
+import com.orm.SugarDb;
+import com.orm.SugarRecord;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import static com.orm.SugarContext.getSugarContext;
+import static com.orm.SugarRecord.save;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class WriteAheadLoggingTests {
+    @Test
+    public void disabledByDefaultTest() {
+        assertFalse(getSugarContext().getSugarDb().isWriteAheadLoggingEnabled());
+    }
+
+    @Test
+    public void enabledSaveAndFindTest() {
+        SugarDb sugarDb = getSugarContext().getSugarDb();
+        sugarDb.setWriteAheadLoggingEnabled(true);
+        assertTrue(sugarDb.isWriteAheadLoggingEnabled());
+
+        save(new StringFieldExtendedModel("Test String"));
+        assertEquals("Test String", SugarRecord.findById(StringFieldExtendedModel.class, 1).getString());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.sugartest;
+
+import com.example.models.StringFieldExtendedModel;
+import com.orm.SugarContext;
+import com.orm.SugarRecord;
+import com.orm.WriteBehindQueue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static com.orm.SugarContext.getSugarContext;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(sdk=18)
+public class WriteBehindTests {
+    @Test
+    public void disabledTest() {
+        assertNull(getSugarContext().getWriteBehindQueue());
+    }
+
+    @Test
+    public void queuedSaveTest() throws Exception {
+        SugarContext.enableWriteBehind(100, 50);
+        WriteBehindQueue writeBehindQueue = getSugarContext().getWriteBehindQueue();
+
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            futures.add(writeBehindQueue.save(new StringFieldExtendedModel("String " + i)));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(Long.valueOf(i + 1), futures.get(i).get());
+        }
+        assertEquals(1000L, SugarRecord.count(StringFieldExtendedModel.class));
+        assertEquals("String 500", SugarRecord.findById(StringFieldExtendedModel.class, 500).getString());
+    }
+
+    @Test
+    public void flushTest() {
+        SugarContext.enableWriteBehind(1000, 60000);
+        WriteBehindQueue writeBehindQueue = getSugarContext().getWriteBehindQueue();
+
+        writeBehindQueue.save(new StringFieldExtendedModel("First"));
+        writeBehindQueue.save(new StringFieldExtendedModel("Second"));
+        writeBehindQueue.flush();
+
+        assertEquals(2L, SugarRecord.count(StringFieldExtendedModel.class));
+    }
+
+    @Test
+    public void shutdownTest() throws Exception {
+        SugarContext.enableWriteBehind(1000, 60000);
+        WriteBehindQueue writeBehindQueue = getSugarContext().getWriteBehindQueue();
+
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            futures.add(writeBehindQueue.save(new StringFieldExtendedModel("String " + i)));
+        }
+
+        //Replacing the queue shuts it down once its saves are written
+        SugarContext.enableWriteBehind(1000, 60000);
+        for (Future<Long> future : futures) {
+            assertTrue(future.isDone());
+            assertTrue(future.get() > 0);
+        }
+        assertEquals(10L, SugarRecord.count(StringFieldExtendedModel.class));
+
+        try {
+            writeBehindQueue.save(new StringFieldExtendedModel("Late"));
+            fail();
+        } catch (IllegalStateException e) {
+            //Expected, the queue no longer accepts saves
+        }
+    }
+}
@@ -0,0 +1,4 @@
+# Generated entity adapters are looked up by name and created through reflection
+-keep class * extends com.orm.util.EntityAdapter {
+    <init>();
+}
@@ -0,0 +1,94 @@
+package com.orm;
+
+import com.orm.dsl.TrackChanges;
+import com.orm.util.BindingPlan;
+import com.orm.util.ColumnBinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Keeps a snapshot of the column values of {@link TrackChanges} entities, taken when they are
+ * loaded or saved, so that only the changed columns have to be written back.
+ */
+class ChangeTracker {
+    /**
+     * Returned by {@link #saveChanges(Object)} when the entity has to be written in full.
+     */
+    static final int NOT_TRACKED = -1;
+
+    //Prevent instantiation
+    private ChangeTracker() { }
+
+    static boolean isTracked(Class<?> type) {
+        return type.isAnnotationPresent(TrackChanges.class);
+    }
+
+    static void snapshot(Object object) {
+        if (isTracked(object.getClass())) {
+            getSugarContext().getSnapshotsMap().put(object, getValues(object));
+        }
+    }
+
+    /**
+     * Writes the columns of the entity that changed since its snapshot. The snapshot is kept,
+     * callers take a new one once the write is committed.
+     *
+     * @return the number of updated rows, 0 if nothing changed, or {@link #NOT_TRACKED} if the
+     *         entity has no snapshot or its row no longer exists
+     */
+    static int saveChanges(Object object) {
+        if (!isTracked(object.getClass())) {
+            return NOT_TRACKED;
+        }
+
+        Object[] snapshot = getSugarContext().getSnapshotsMap().get(object);
+        Long id = EntityWriter.getIdValue(object, EntityWriter.getIdField(object.getClass()), getSugarContext().getEntitiesMap());
+        if (snapshot == null || id == null) {
+            return NOT_TRACKED;
+        }
+
+        Object[] values = getValues(object);
+        List<Integer> changedColumns = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (!isEqual(snapshot[i], values[i])) {
+                changedColumns.add(i);
+            }
+        }
+
+        if (changedColumns.isEmpty()) {
+            return 0;
+        }
+
+        int rows = EntityWriter.update(object.getClass(), id, values, changedColumns);
+        return (rows == 0) ? NOT_TRACKED : rows;
+    }
+
+    private static Object[] getValues(Object object) {
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        ColumnBinder[] binders = BindingPlan.get(object.getClass()).getInsertBinders();
+        Object[] values = new Object[binders.length];
+
+        for (int i = 0; i < values.length; i++) {
+            try {
+                values[i] = binders[i].getValue(object, entitiesMap);
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return values;
+    }
+
+    private static boolean isEqual(Object snapshotValue, Object value) {
+        if (snapshotValue instanceof byte[] && value instanceof byte[]) {
+            return Arrays.equals((byte[]) snapshotValue, (byte[]) value);
+        }
+
+        return (snapshotValue == null) ? value == null : snapshotValue.equals(value);
+    }
+}
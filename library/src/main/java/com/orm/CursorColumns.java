@@ -0,0 +1,42 @@
+package com.orm;
+
+import android.database.Cursor;
+
+import com.orm.util.BindingPlan;
+import com.orm.util.ColumnBinder;
+import com.orm.util.NamingHelper;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * The column index of every field of an entity in a cursor. Resolved once per cursor, so
+ * inflating a row doesn't convert field names or look up column names.
+ */
+class CursorColumns {
+    final ColumnBinder[] binders;
+    final int[] indexes;
+    final int idIndex;
+    private EntityFactory<?> entityFactory;
+
+    CursorColumns(Cursor cursor, Class<?> type) {
+        binders = BindingPlan.get(type).getTableBinders();
+        indexes = new int[binders.length];
+        idIndex = cursor.getColumnIndex("ID");
+
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = cursor.getColumnIndex(NamingHelper.toSQLName(binders[i].getField()));
+        }
+    }
+
+    /**
+     * Creates an entity to inflate a row into.
+     */
+    <T> T newInstance(Class<T> type) throws InstantiationException, IllegalAccessException,
+            NoSuchMethodException, InvocationTargetException {
+        if (entityFactory == null) {
+            entityFactory = EntityFactory.get(type);
+        }
+
+        return type.cast(entityFactory.newInstance());
+    }
+}
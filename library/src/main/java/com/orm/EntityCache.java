@@ -0,0 +1,122 @@
+package com.orm;
+
+import com.orm.dsl.Cacheable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * The least recently used entities of a {@link Cacheable} class, by id, along with its first
+ * and last entity. Writes through {@link SugarRecord} clear the cache of the written class, and
+ * raw statements clear every cache.
+ *
+ * A read racing a write could put back the row the write replaced. Readers take the
+ * {@link #getGeneration() generation} before querying, and entities read before the last
+ * clear are not cached.
+ */
+public final class EntityCache {
+    private final int maxEntries;
+    private final Map<Long, Object> entities;
+    private Object first;
+    private Object last;
+    private long generation;
+    private long hitCount;
+    private long missCount;
+
+    EntityCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entities = new LinkedHashMap<Long, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the cache of the class, or null if the class is not {@link Cacheable}
+     */
+    public static EntityCache of(Class<?> type) {
+        Cacheable cacheable = type.getAnnotation(Cacheable.class);
+        return (cacheable != null) ? getSugarContext().getEntityCache(type, cacheable.maxEntries()) : null;
+    }
+
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the cached entity, or null if it isn't cached
+     */
+    synchronized Object get(long id) {
+        Object entity = entities.get(id);
+        countLookup(entity);
+        return entity;
+    }
+
+    synchronized void put(long id, Object entity, long readGeneration) {
+        if (readGeneration == generation) {
+            entities.put(id, entity);
+        }
+    }
+
+    synchronized Object getFirst() {
+        countLookup(first);
+        return first;
+    }
+
+    synchronized void putFirst(Object entity, long readGeneration) {
+        if (readGeneration == generation) {
+            first = entity;
+        }
+    }
+
+    synchronized Object getLast() {
+        countLookup(last);
+        return last;
+    }
+
+    synchronized void putLast(Object entity, long readGeneration) {
+        if (readGeneration == generation) {
+            last = entity;
+        }
+    }
+
+    private void countLookup(Object entity) {
+        if (entity != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+    }
+
+    public synchronized void clear() {
+        entities.clear();
+        first = null;
+        last = null;
+        generation++;
+    }
+
+    public synchronized int size() {
+        return entities.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized void resetCounters() {
+        hitCount = 0;
+        missCount = 0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.orm;
+
+import com.orm.util.BindingPlan;
+import com.orm.util.ColumnBinder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Copies entities with the entities they reference, as reading their rows again would create
+ * them. An entity referenced several times is copied once, so the copies share it the same way.
+ */
+class EntityCopier {
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+    private final Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+
+    <T> List<T> copy(List<T> entities) throws NoSuchMethodException, InstantiationException,
+            IllegalAccessException, InvocationTargetException {
+        List<T> result = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            result.add(copy(entity));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T copy(T entity) throws NoSuchMethodException, InstantiationException,
+            IllegalAccessException, InvocationTargetException {
+        Object copy = copies.get(entity);
+        if (copy != null) {
+            return (T) copy;
+        }
+
+        Class<T> type = (Class<T>) entity.getClass();
+        copy = EntityFactory.get(type).newInstance();
+        copies.put(entity, copy);
+
+        for (ColumnBinder binder : BindingPlan.get(type).getTableBinders()) {
+            if (binder.isReference()) {
+                Object referenced = binder.get(entity);
+                binder.set(copy, (referenced != null) ? copy(referenced) : null);
+            } else {
+                binder.copy(entity, copy);
+            }
+        }
+
+        Long id = entitiesMap.get(entity);
+        if (id != null) {
+            entitiesMap.put(copy, id);
+        }
+        ChangeTracker.snapshot(copy);
+        return (T) copy;
+    }
+}
@@ -0,0 +1,62 @@
+package com.orm;
+
+import com.orm.util.BindingPlan;
+import com.orm.util.EntityAdapter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the entities rows are inflated into. The way to create instances of a class is
+ * resolved once: its generated {@link EntityAdapter} when there is one, else its no-arg
+ * constructor, looked up and made accessible a single time.
+ */
+abstract class EntityFactory<T> {
+    private static final Map<Class<?>, EntityFactory<?>> factories = Collections.synchronizedMap(new HashMap<Class<?>, EntityFactory<?>>());
+
+    abstract T newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException;
+
+    @SuppressWarnings("unchecked")
+    static <T> EntityFactory<T> get(Class<T> type) throws NoSuchMethodException {
+        EntityFactory<T> factory = (EntityFactory<T>) factories.get(type);
+
+        if (factory == null) {
+            EntityAdapter<T> adapter = (EntityAdapter<T>) BindingPlan.get(type).getAdapter();
+            factory = (adapter != null) ? new AdapterFactory<>(adapter) : new ConstructorFactory<>(type);
+            factories.put(type, factory);
+        }
+
+        return factory;
+    }
+
+    private static class AdapterFactory<T> extends EntityFactory<T> {
+        private final EntityAdapter<T> adapter;
+
+        AdapterFactory(EntityAdapter<T> adapter) {
+            this.adapter = adapter;
+        }
+
+        @Override
+        T newInstance() {
+            return adapter.newInstance();
+        }
+    }
+
+    private static class ConstructorFactory<T> extends EntityFactory<T> {
+        private final Constructor<T> constructor;
+
+        ConstructorFactory(Class<T> type) throws NoSuchMethodException {
+            constructor = type.getDeclaredConstructor();
+            //Skips the access check on every call
+            constructor.setAccessible(true);
+        }
+
+        @Override
+        T newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+            return constructor.newInstance();
+        }
+    }
+}
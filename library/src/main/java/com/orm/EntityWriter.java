@@ -0,0 +1,415 @@
+package com.orm;
+
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.util.Log;
+
+import com.orm.dsl.Id;
+import com.orm.dsl.Table;
+import com.orm.dsl.Upsert;
+import com.orm.util.BindingPlan;
+import com.orm.util.ColumnBinder;
+import com.orm.util.ManifestHelper;
+import com.orm.util.NamingHelper;
+import com.orm.util.QueryBuilder;
+import com.orm.util.ReflectionUtil;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Writes entity rows through the compiled statements of the {@link StatementCache}, either one
+ * row at a time or many rows per multi-row INSERT statement.
+ */
+class EntityWriter {
+    private static final String SUGAR = "Sugar";
+
+    /**
+     * SQLITE_MAX_VARIABLE_NUMBER of the SQLite builds shipped with Android.
+     */
+    static final int MAX_VARIABLE_NUMBER = 999;
+
+    /**
+     * SQLITE_MAX_COMPOUND_SELECT, which older SQLite versions also apply to multi-row VALUES.
+     */
+    static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    //Prevent instantiation
+    private EntityWriter() { }
+
+    /**
+     * Multi-row VALUES lists need SQLite 3.7.11, which ships with Jelly Bean.
+     */
+    static boolean isMultiRowInsertSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+    }
+
+    /**
+     * Native upserts need SQLite 3.24, which ships with Android 11 (API level 30).
+     */
+    static boolean isNativeUpsertSupported() {
+        return Build.VERSION.SDK_INT >= 30;
+    }
+
+    /**
+     * Tells if rows with a known id are updated in place rather than replaced, as selected by
+     * {@link Upsert} or else the manifest.
+     */
+    static boolean isUpsert(Class<?> type) {
+        if (ReflectionUtil.getInsertColumns(type).isEmpty()) {
+            return false;
+        }
+
+        Upsert upsert = type.getAnnotation(Upsert.class);
+        return (upsert != null) ? upsert.value() : ManifestHelper.isUpsertEnabled();
+    }
+
+    static int getRowsPerStatement(int bindsPerRow) {
+        return Math.max(1, Math.min(MAX_ROWS_PER_STATEMENT, MAX_VARIABLE_NUMBER / bindsPerRow));
+    }
+
+    static long insert(Object object) {
+        Class<?> type = object.getClass();
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        Field idField = getIdField(type);
+        ColumnBinder[] binders = BindingPlan.get(type).getInsertBinders();
+        Long idValue = getIdValue(object, idField, entitiesMap);
+        long id;
+
+        if (idValue != null && isUpsert(type)) {
+            List<Object> missingRows = updateRows(type, Collections.singletonList(object), Collections.singletonList(idValue),
+                    idField, binders, entitiesMap, new ArrayList<Long>(1));
+            if (missingRows.isEmpty()) {
+                //-1 if the update failed
+                return getIdValue(object, idField, entitiesMap);
+            }
+        }
+
+        try {
+            SQLiteStatement insertStatement = getSugarContext().getSugarDb().getStatementCache().getInsertStatement(type);
+            synchronized (insertStatement) {
+                insertStatement.clearBindings();
+                bindRow(insertStatement, 0, binders, object, idValue, entitiesMap);
+                id = insertStatement.executeInsert();
+            }
+        } catch (SQLException e) {
+            if (RetryPolicy.isBusy(e)) {
+                throw e;
+            }
+            Log.e(SUGAR, "Error inserting " + type.getSimpleName(), e);
+            id = -1;
+        }
+
+        setIdValue(object, idField, id, entitiesMap);
+        return id;
+    }
+
+    /**
+     * Inserts all objects of the given class, packing as many rows into each statement as the
+     * host parameter limit allows. New rows and rows with a known id are written by separate
+     * statements, so the ids generated for a statement of new rows are consecutive and end at
+     * the last inserted row id. The rows of a failed statement are inserted one at a time, and
+     * only the rows that fail on their own get an id of -1.
+     */
+    static void insertAll(Class<?> type, List<?> objects) {
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        Field idField = getIdField(type);
+        ColumnBinder[] binders = BindingPlan.get(type).getInsertBinders();
+        int rowsPerStatement = getRowsPerStatement(binders.length + 1);
+
+        List<Object> newRows = new ArrayList<>();
+        List<Object> existingRows = new ArrayList<>();
+        List<Long> existingIds = new ArrayList<>();
+        for (Object object : objects) {
+            Long idValue = getIdValue(object, idField, entitiesMap);
+            if (idValue == null) {
+                newRows.add(object);
+            } else {
+                existingRows.add(object);
+                existingIds.add(idValue);
+            }
+        }
+
+        if (!existingRows.isEmpty() && isUpsert(type)) {
+            if (isNativeUpsertSupported()) {
+                insertChunks(type, existingRows, existingIds, true, idField, binders, rowsPerStatement, entitiesMap);
+                existingRows.clear();
+            } else {
+                List<Long> missingIds = new ArrayList<>();
+                existingRows = updateRows(type, existingRows, existingIds, idField, binders, entitiesMap, missingIds);
+                existingIds = missingIds;
+            }
+        }
+
+        insertChunks(type, existingRows, existingIds, false, idField, binders, rowsPerStatement, entitiesMap);
+        insertChunks(type, newRows, null, false, idField, binders, rowsPerStatement, entitiesMap);
+    }
+
+    /**
+     * Updates the rows of the given objects in place.
+     *
+     * @param missingIds receives the ids of the returned objects
+     * @return the objects that have no row to update
+     */
+    private static List<Object> updateRows(Class<?> type, List<Object> rows, List<Long> ids, Field idField, ColumnBinder[] binders,
+                                           Map<Object, Long> entitiesMap, List<Long> missingIds) {
+        List<Object> missingRows = new ArrayList<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            Object row = rows.get(i);
+            long id = ids.get(i);
+
+            try {
+                SQLiteStatement updateStatement = getSugarContext().getSugarDb().getStatementCache().getUpdateStatement(type);
+                synchronized (updateStatement) {
+                    updateStatement.clearBindings();
+                    bindRow(updateStatement, 0, binders, row, id, entitiesMap);
+                    if (executeUpdateDelete(updateStatement) == 0) {
+                        missingRows.add(row);
+                        missingIds.add(id);
+                    }
+                }
+            } catch (SQLException e) {
+                if (RetryPolicy.isBusy(e)) {
+                    throw e;
+                }
+                Log.e(SUGAR, "Error updating " + type.getSimpleName(), e);
+                setIdValue(row, idField, -1, entitiesMap);
+            }
+        }
+
+        return missingRows;
+    }
+
+    private static void insertChunks(Class<?> type, List<Object> rows, List<Long> ids, boolean isUpsert, Field idField,
+                                     ColumnBinder[] binders, int rowsPerStatement, Map<Object, Long> entitiesMap) {
+        StatementCache statementCache = getSugarContext().getSugarDb().getStatementCache();
+        int bindsPerRow = binders.length + 1;
+
+        for (int start = 0; start < rows.size(); start += rowsPerStatement) {
+            int end = Math.min(rows.size(), start + rowsPerStatement);
+            int rowCount = end - start;
+            boolean isCached = rowCount == rowsPerStatement || rowCount == 1;
+            SQLiteStatement insertStatement = null;
+            long lastId;
+
+            try {
+                if (isUpsert) {
+                    insertStatement = isCached
+                            ? statementCache.getUpsertStatement(type, rowCount)
+                            : statementCache.compileUpsertStatement(type, rowCount);
+                } else {
+                    insertStatement = isCached
+                            ? statementCache.getInsertStatement(type, rowCount)
+                            : statementCache.compileInsertStatement(type, rowCount);
+                }
+
+                synchronized (insertStatement) {
+                    insertStatement.clearBindings();
+                    for (int i = start; i < end; i++) {
+                        Long idValue = (ids != null) ? ids.get(i) : null;
+                        bindRow(insertStatement, (i - start) * bindsPerRow, binders, rows.get(i), idValue, entitiesMap);
+                    }
+                    lastId = insertStatement.executeInsert();
+                }
+            } catch (SQLException e) {
+                if (RetryPolicy.isBusy(e)) {
+                    throw e;
+                }
+                Log.e(SUGAR, "Error inserting " + rowCount + " " + type.getSimpleName() + " rows", e);
+                lastId = -1;
+            } finally {
+                if (!isCached && insertStatement != null) {
+                    insertStatement.close();
+                }
+            }
+
+            if (lastId == -1 && rowCount > 1) {
+                //A single bad row fails the whole statement, retry the rows one by one so only it is lost
+                insertChunks(type, rows.subList(start, end), (ids != null) ? ids.subList(start, end) : null, isUpsert,
+                        idField, binders, 1, entitiesMap);
+                continue;
+            }
+
+            for (int i = start; i < end; i++) {
+                long id;
+                if (ids != null) {
+                    id = (lastId == -1) ? -1 : ids.get(i);
+                } else {
+                    id = (lastId == -1) ? -1 : lastId - (end - 1 - i);
+                }
+                setIdValue(rows.get(i), idField, id, entitiesMap);
+            }
+
+            if (ManifestHelper.isDebugEnabled()) {
+                Log.i(SUGAR, rowCount + " " + type.getSimpleName() + " saved, last : " + lastId);
+            }
+        }
+    }
+
+    /**
+     * Updates the given columns of the row with the given id.
+     *
+     * @param values the values of all {@link ReflectionUtil#getInsertColumns(Class)}
+     * @param changedColumns the positions of the columns to write
+     * @return the number of updated rows
+     */
+    static int update(Class<?> type, long id, Object[] values, List<Integer> changedColumns) {
+        List<Field> columns = ReflectionUtil.getInsertColumns(type);
+        List<String> columnNames = new ArrayList<>(changedColumns.size());
+        for (int column : changedColumns) {
+            columnNames.add(NamingHelper.toSQLName(columns.get(column)));
+        }
+
+        String sql = QueryBuilder.getUpdateSQL(NamingHelper.toSQLName(type), columnNames);
+        SQLiteStatement updateStatement = getSugarContext().getSugarDb().getStatementCache().getStatement(sql);
+        synchronized (updateStatement) {
+            updateStatement.clearBindings();
+            for (int i = 0; i < changedColumns.size(); i++) {
+                ReflectionUtil.bindValue(updateStatement, i + 1, values[changedColumns.get(i)]);
+            }
+            updateStatement.bindLong(changedColumns.size() + 1, id);
+            return executeUpdateDelete(updateStatement);
+        }
+    }
+
+    /**
+     * Deletes the rows with the given ids, as many per statement as the host parameter limit
+     * allows.
+     *
+     * @return the number of deleted rows
+     */
+    static int deleteAll(Class<?> type, List<Long> ids) {
+        StatementCache statementCache = getSugarContext().getSugarDb().getStatementCache();
+        String tableName = NamingHelper.toSQLName(type);
+        int deletedRows = 0;
+
+        for (int start = 0; start < ids.size(); start += MAX_VARIABLE_NUMBER) {
+            int end = Math.min(ids.size(), start + MAX_VARIABLE_NUMBER);
+            int idCount = end - start;
+            boolean isCached = idCount == MAX_VARIABLE_NUMBER || idCount == 1;
+            String sql = QueryBuilder.getDeleteSQL(tableName, idCount);
+            SQLiteStatement deleteStatement = isCached
+                    ? statementCache.getStatement(sql)
+                    : getSugarContext().getSugarDb().getDB().compileStatement(sql);
+
+            try {
+                synchronized (deleteStatement) {
+                    deleteStatement.clearBindings();
+                    for (int i = start; i < end; i++) {
+                        deleteStatement.bindLong(i - start + 1, ids.get(i));
+                    }
+                    deletedRows += executeUpdateDelete(deleteStatement);
+                }
+            } finally {
+                if (!isCached) {
+                    deleteStatement.close();
+                }
+            }
+        }
+
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, deletedRows + " " + type.getSimpleName() + " deleted");
+        }
+
+        return deletedRows;
+    }
+
+    static int executeUpdateDelete(SQLiteStatement statement) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+            return statement.executeUpdateDelete();
+        }
+
+        statement.execute();
+        return (int) DatabaseUtils.longForQuery(getSugarContext().getSugarDb().getDB(), "SELECT changes()", null);
+    }
+
+    private static void bindRow(SQLiteStatement statement, int offset, ColumnBinder[] binders, Object object, Long idValue,
+                                Map<Object, Long> entitiesMap) {
+        for (int i = 0; i < binders.length; i++) {
+            try {
+                binders[i].bind(statement, offset + i + 1, object, entitiesMap);
+            } catch (IllegalAccessException e) {
+                Log.e(SUGAR, "Field " + binders[i].getField().getName() + " is not accessible", e);
+                statement.bindNull(offset + i + 1);
+            }
+        }
+
+        if (idValue != null) {
+            statement.bindLong(offset + binders.length + 1, idValue);
+        } else {
+            statement.bindNull(offset + binders.length + 1);
+        }
+    }
+
+    /**
+     * Finds the field holding the id of an entity: the field annotated with {@link Id} or else
+     * the field named "id".
+     */
+    static Field getIdField(Class<?> type) {
+        Field idField = null;
+        boolean isIdAnnotationPresent = false;
+        for (Field column : ReflectionUtil.getTableFields(type)) {
+            if(column.isAnnotationPresent(Id.class)) {
+
+                if(isIdAnnotationPresent) {
+                    throw new IllegalStateException("Multiple Id annotations present on " + type.getSimpleName() + ". Only one field can have this annotation.");
+                }
+
+                idField = column;
+                isIdAnnotationPresent = true;
+            }
+
+            //Check for null to make sure we don't squash a declared annotated ID field
+            else if (column.getName().equals("id") && idField == null) {
+                idField = column;
+            }
+        }
+
+        return idField;
+    }
+
+    static Long getIdValue(Object object, Field idField, Map<Object, Long> entitiesMap) {
+        Long idValue = null;
+        if (idField != null) {
+            try {
+                Object fieldValue = BindingPlan.get(object.getClass()).getIdBinder().get(object);
+                if (fieldValue instanceof Long) {
+                    idValue = (Long) fieldValue;
+                }
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            }
+        }
+
+        boolean isIdAnnotationPresent = idField != null && idField.isAnnotationPresent(Id.class);
+        if (idValue == null && !isIdAnnotationPresent && SugarRecord.isSugarEntity(object.getClass())) {
+            idValue = entitiesMap.get(object);
+        }
+
+        return idValue;
+    }
+
+    static void setIdValue(Object object, Field idField, long id, Map<Object, Long> entitiesMap) {
+        if (object.getClass().isAnnotationPresent(Table.class)) {
+            if (idField != null) {
+                try {
+                    BindingPlan.get(object.getClass()).getIdBinder().set(object, id);
+                } catch (IllegalAccessException e) {
+                    e.printStackTrace();
+                }
+            } else {
+                entitiesMap.put(object, id);
+            }
+        } else if (SugarRecord.class.isAssignableFrom(object.getClass())) {
+            ((SugarRecord) object).setId(id);
+        }
+    }
+}
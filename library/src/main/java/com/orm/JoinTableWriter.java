@@ -0,0 +1,71 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.orm.dsl.Relationship;
+import com.orm.util.ManifestHelper;
+import com.orm.util.QueryBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Collects the join table rows of {@link Relationship} fields and writes them in one
+ * transaction, reusing one compiled INSERT OR IGNORE statement per join table. Rows that
+ * already exist are left untouched.
+ */
+class JoinTableWriter {
+    private static final String SUGAR = "Sugar";
+
+    private final Map<String, List<long[]>> rows = new LinkedHashMap<>();
+    private int rowCount = 0;
+
+    void add(Relationship relationship, long objectId, long refObjectId) {
+        String sql = QueryBuilder.getInsertOrIgnoreSQL(relationship.joinTable(),
+                Arrays.asList(relationship.objectIdName(), relationship.refObjectIdName()));
+
+        List<long[]> tableRows = rows.get(sql);
+        if (tableRows == null) {
+            tableRows = new ArrayList<>();
+            rows.put(sql, tableRows);
+        }
+
+        tableRows.add(new long[]{objectId, refObjectId});
+        rowCount++;
+    }
+
+    void write(SQLiteDatabase db) {
+        if (rowCount == 0) {
+            return;
+        }
+
+        final StatementCache statementCache = getSugarContext().getSugarDb().getStatementCache();
+        SugarTransactionHelper.runInTransaction(db, TransactionMode.IMMEDIATE, new SugarTransactionHelper.ResultCallback<Void>() {
+            @Override
+            public Void manipulateInTransaction() {
+                for (Map.Entry<String, List<long[]>> entry : rows.entrySet()) {
+                    SQLiteStatement insertStatement = statementCache.getStatement(entry.getKey());
+                    synchronized (insertStatement) {
+                        for (long[] row : entry.getValue()) {
+                            insertStatement.bindLong(1, row[0]);
+                            insertStatement.bindLong(2, row[1]);
+                            insertStatement.executeInsert();
+                        }
+                    }
+                }
+                return null;
+            }
+        });
+
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, "Inserted " + rowCount + " join table records");
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.orm;
+
+import com.orm.util.BindingPlan;
+import com.orm.util.ColumnBinder;
+import com.orm.util.NamingHelper;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The least recently used results of {@link SugarRecord#find}, {@link SugarRecord#count},
+ * {@link SugarRecord#findWithQuery} and the {@link com.orm.query.Select} built on them, keyed
+ * by their SQL and arguments. Each result is tagged with the tables its query reads, including
+ * the tables of the entities it references. Writes through {@link SugarRecord} drop the results
+ * tagged with the written table, and raw statements drop every result.
+ *
+ * Every caller gets its own copies of the cached entities, so changing them doesn't change the
+ * cache. Queries are not cached while a {@link SugarSession} or a transaction is open on the
+ * calling thread.
+ *
+ * A read racing a write could put back the result the write replaced. Readers take the
+ * {@link #getGeneration() generation} before querying, and results read before the last
+ * invalidation are not cached.
+ */
+public final class QueryCache {
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final Map<Class<?>, Set<String>> tablesRead = Collections.synchronizedMap(new HashMap<Class<?>, Set<String>>());
+
+    private static final class CachedResult {
+        final Object result;
+        final Set<String> tables;
+        final long expiresAt;
+
+        CachedResult(Object result, Set<String> tables, long expiresAt) {
+            this.result = result;
+            this.tables = tables;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, CachedResult> results;
+    private final Map<String, Set<String>> keysByTable = new HashMap<>();
+    private long generation;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @param ttlMillis how long a result is kept, or 0 to keep it until its tables are written
+     */
+    QueryCache(final int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.results = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                if (size() > maxEntries) {
+                    unindex(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param kind what the query returns, since the same SQL can be read into different classes
+     */
+    static String key(String kind, String sql, Object[] args) {
+        return kind + '\u0000' + sql + '\u0000' + ((args != null) ? Arrays.toString(args) : "");
+    }
+
+    static String tableOf(Class<?> type) {
+        return NamingHelper.toSQLName(type).toUpperCase(Locale.US);
+    }
+
+    /**
+     * The tables the entities of a class are read from: its own, and the tables of the entities
+     * it references, which are loaded along with it.
+     */
+    static Set<String> tablesRead(Class<?> type) {
+        Set<String> tables = tablesRead.get(type);
+        if (tables == null) {
+            tables = new HashSet<>();
+            collectTablesRead(type, tables, new HashSet<Class<?>>());
+            tablesRead.put(type, tables);
+        }
+        return tables;
+    }
+
+    private static void collectTablesRead(Class<?> type, Set<String> tables, Set<Class<?>> visited) {
+        if (!visited.add(type)) {
+            return;
+        }
+
+        tables.add(tableOf(type));
+        for (ColumnBinder binder : BindingPlan.get(type).getTableBinders()) {
+            if (binder.isReference()) {
+                collectTablesRead(binder.getField().getType(), tables, visited);
+            }
+        }
+    }
+
+    /**
+     * Every identifier of a raw query is taken as a table it may read. Tagging a result with a
+     * column name or a keyword only costs an entry in the tag index.
+     */
+    static Set<String> tablesOf(String sql) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = IDENTIFIER.matcher(sql);
+        while (matcher.find()) {
+            tables.add(matcher.group().toUpperCase(Locale.US));
+        }
+        return tables;
+    }
+
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the cached result, or null if it isn't cached or has expired
+     */
+    synchronized Object get(String key) {
+        CachedResult cachedResult = results.get(key);
+        if (cachedResult != null && ttlMillis > 0 && now() >= cachedResult.expiresAt) {
+            results.remove(key);
+            unindex(key, cachedResult);
+            cachedResult = null;
+        }
+
+        if (cachedResult != null) {
+            hitCount++;
+            return cachedResult.result;
+        }
+        missCount++;
+        return null;
+    }
+
+    synchronized void put(String key, Object result, Set<String> tables, long readGeneration) {
+        if (readGeneration != generation) {
+            return;
+        }
+
+        CachedResult previous = results.remove(key);
+        if (previous != null) {
+            unindex(key, previous);
+        }
+
+        results.put(key, new CachedResult(result, tables, (ttlMillis > 0) ? now() + ttlMillis : Long.MAX_VALUE));
+        for (String table : tables) {
+            Set<String> keys = keysByTable.get(table);
+            if (keys == null) {
+                keys = new HashSet<>();
+                keysByTable.put(table, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Drops the results read from the table.
+     */
+    synchronized void invalidate(String table) {
+        generation++;
+        Set<String> keys = keysByTable.remove(table.toUpperCase(Locale.US));
+        if (keys == null) {
+            return;
+        }
+
+        for (String key : keys) {
+            CachedResult cachedResult = results.remove(key);
+            if (cachedResult != null) {
+                unindex(key, cachedResult);
+            }
+        }
+    }
+
+    private void unindex(String key, CachedResult cachedResult) {
+        for (String table : cachedResult.tables) {
+            Set<String> keys = keysByTable.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTable.remove(table);
+                }
+            }
+        }
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    public synchronized void clear() {
+        results.clear();
+        keysByTable.clear();
+        generation++;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized void resetCounters() {
+        hitCount = 0;
+        missCount = 0;
+    }
+}
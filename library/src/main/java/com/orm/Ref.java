@@ -0,0 +1,88 @@
+package com.orm;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * A reference to another entity that is loaded on first access. A {@code Ref<T>} field is
+ * stored as the id of the referenced entity, like a field of the entity type, but reading a
+ * row only keeps the id instead of loading the entity:
+ *
+ * <pre>
+ * public class Book extends SugarRecord {
+ *     Ref&lt;Author&gt; author;
+ * }
+ *
+ * book.author = Ref.of(author);
+ * ...
+ * Author author = book.author.get(); // queried here, once
+ * </pre>
+ *
+ * The referenced entity has to be saved before the entity holding the reference.
+ */
+public final class Ref<T> {
+    private final Class<T> type;
+    private Long id;
+    private T entity;
+    private boolean isLoaded;
+
+    private Ref(Class<T> type, Long id, T entity, boolean isLoaded) {
+        this.type = type;
+        this.id = id;
+        this.entity = entity;
+        this.isLoaded = isLoaded;
+    }
+
+    /**
+     * References an entity that is already loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Ref<T> of(T entity) {
+        return new Ref<>((Class<T>) entity.getClass(), null, entity, true);
+    }
+
+    /**
+     * References the entity with the given id, which is loaded on first access.
+     */
+    public static <T> Ref<T> to(Class<T> type, long id) {
+        return new Ref<>(type, id, null, false);
+    }
+
+    /**
+     * Loads the entity if it isn't yet.
+     *
+     * @return the entity, or null if its row no longer exists
+     */
+    public T get() {
+        if (!isLoaded) {
+            entity = SugarRecord.findById(type, id);
+            isLoaded = true;
+        }
+
+        return entity;
+    }
+
+    public void set(T entity) {
+        this.entity = entity;
+        this.id = null;
+        this.isLoaded = true;
+    }
+
+    /**
+     * @return the id of the entity, without loading it, or null if it has not been saved
+     */
+    public Long getId() {
+        if (entity == null) {
+            return id;
+        }
+
+        return EntityWriter.getIdValue(entity, EntityWriter.getIdField(entity.getClass()), getSugarContext().getEntitiesMap());
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public boolean isLoaded() {
+        return isLoaded;
+    }
+}
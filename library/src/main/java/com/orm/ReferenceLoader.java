@@ -0,0 +1,116 @@
+package com.orm;
+
+import com.orm.util.ColumnBinder;
+import com.orm.util.QueryBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Collects the entity references of the rows inflated from a cursor, and loads every
+ * referenced class with one query per {@link EntityWriter#MAX_VARIABLE_NUMBER} ids instead of
+ * one query per row. The referenced entities load their own references the same way, so a
+ * graph takes a query per level rather than per row. Entities held by the open
+ * {@link SugarSession} or an {@link EntityCache} are not queried.
+ */
+class ReferenceLoader {
+    private final Map<Class<?>, List<PendingReference>> pendingReferences = new LinkedHashMap<>();
+
+    void add(Object object, ColumnBinder binder, long id) {
+        Class<?> type = binder.getField().getType();
+        List<PendingReference> references = pendingReferences.get(type);
+        if (references == null) {
+            references = new ArrayList<>();
+            pendingReferences.put(type, references);
+        }
+
+        references.add(new PendingReference(object, binder, id));
+    }
+
+    /**
+     * Loads the collected references and sets them on the objects referencing them. References
+     * to missing rows are set to null, and the objects' change tracking snapshots are
+     * refreshed.
+     */
+    void load() throws IllegalAccessException {
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        Set<Object> referencingObjects = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        SugarSession session = SugarSession.current();
+
+        for (Map.Entry<Class<?>, List<PendingReference>> entry : pendingReferences.entrySet()) {
+            Set<Long> ids = new LinkedHashSet<>();
+            for (PendingReference reference : entry.getValue()) {
+                ids.add(reference.id);
+            }
+
+            Map<Long, Object> entities = new HashMap<>(ids.size());
+            List<String> idChunk = new ArrayList<>(Math.min(ids.size(), EntityWriter.MAX_VARIABLE_NUMBER));
+            EntityCache entityCache = EntityCache.of(entry.getKey());
+            long generation = (entityCache != null) ? entityCache.getGeneration() : 0;
+            for (Long id : ids) {
+                Object entity = (session != null) ? session.get(entry.getKey(), id) : null;
+                if (entity == null && entityCache != null) {
+                    entity = entityCache.get(id);
+                }
+                if (entity != null) {
+                    entities.put(id, entity);
+                    continue;
+                }
+
+                idChunk.add(String.valueOf(id));
+                if (idChunk.size() == EntityWriter.MAX_VARIABLE_NUMBER) {
+                    loadEntities(entry.getKey(), idChunk, entities, entitiesMap, entityCache, generation);
+                    idChunk.clear();
+                }
+            }
+            if (!idChunk.isEmpty()) {
+                loadEntities(entry.getKey(), idChunk, entities, entitiesMap, entityCache, generation);
+            }
+
+            for (PendingReference reference : entry.getValue()) {
+                reference.binder.set(reference.object, entities.get(reference.id));
+                referencingObjects.add(reference.object);
+            }
+        }
+
+        //The snapshots were taken before the references were set
+        for (Object object : referencingObjects) {
+            ChangeTracker.snapshot(object);
+        }
+
+        pendingReferences.clear();
+    }
+
+    private static void loadEntities(Class<?> type, List<String> ids, Map<Long, Object> entities, Map<Object, Long> entitiesMap,
+                                     EntityCache entityCache, long generation) {
+        String whereClause = "id IN (" + QueryBuilder.generatePlaceholders(ids.size()) + ")";
+        for (Object entity : SugarRecord.find(type, whereClause, ids.toArray(new String[ids.size()]))) {
+            Long id = entitiesMap.get(entity);
+            entities.put(id, entity);
+            if (entityCache != null && id != null) {
+                entityCache.put(id, entity, generation);
+            }
+        }
+    }
+
+    private static class PendingReference {
+        final Object object;
+        final ColumnBinder binder;
+        final long id;
+
+        PendingReference(Object object, ColumnBinder binder, long id) {
+            this.object = object;
+            this.binder = binder;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteDatabaseLockedException;
+import android.database.sqlite.SQLiteException;
+import android.util.Log;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Retries transactions that failed because another connection held the database lock, waiting
+ * an exponentially growing, jittered backoff between the attempts. Counts the retries and the
+ * time spent waiting.
+ *
+ * Set it with {@link SugarContext#setRetryPolicy(RetryPolicy)}.
+ */
+public class RetryPolicy {
+    private static final String SUGAR = "Sugar";
+
+    public static final int DEFAULT_MAX_RETRIES = 5;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 50;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 2000;
+
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Random random = new Random();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong waitedMillis = new AtomicLong();
+
+    public RetryPolicy() {
+        this(DEFAULT_MAX_RETRIES, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * @param maxRetries how often a transaction is retried, 0 to never retry
+     * @param initialBackoffMillis the wait before the first retry, doubled for every further one
+     * @param maxBackoffMillis the longest wait between two attempts
+     */
+    public RetryPolicy(int maxRetries, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxRetries < 0 || initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Invalid retry policy: " + maxRetries + " retries, " +
+                    initialBackoffMillis + " to " + maxBackoffMillis + " ms backoff");
+        }
+
+        this.maxRetries = maxRetries;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public static RetryPolicy noRetries() {
+        return new RetryPolicy(0, 0, 0);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @return the number of retried attempts so far
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return the milliseconds spent waiting between attempts so far
+     */
+    public long getWaitedMillis() {
+        return waitedMillis.get();
+    }
+
+    public void resetCounters() {
+        retryCount.set(0);
+        waitedMillis.set(0);
+    }
+
+    /**
+     * Runs the callback, running it again after a backoff as long as it fails because the
+     * database is locked. The callback must begin and end its own transaction, it is run once
+     * if the thread is in a transaction already.
+     */
+    <T> T execute(SugarTransactionHelper.ResultCallback<T> callback) {
+        //Only the outermost transaction can be run again
+        if (getSugarContext().getSugarDb().getDB().inTransaction()) {
+            return callback.manipulateInTransaction();
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return callback.manipulateInTransaction();
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries || !isBusy(e)) {
+                    throw e;
+                }
+
+                long backoff = getBackoffMillis(attempt);
+                Log.w(SUGAR, "Database locked, retrying in " + backoff + " ms");
+                retryCount.incrementAndGet();
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                waitedMillis.addAndGet(backoff);
+            }
+        }
+    }
+
+    /**
+     * Picks a wait between half and all of the exponential backoff of the attempt, so threads
+     * that failed together don't retry together.
+     */
+    long getBackoffMillis(int attempt) {
+        long backoff = initialBackoffMillis;
+        for (int i = 0; i < attempt && backoff < maxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, maxBackoffMillis);
+
+        long half = backoff / 2;
+        synchronized (random) {
+            return half + (long) (random.nextDouble() * (backoff - half));
+        }
+    }
+
+    /**
+     * Tells if the exception was caused by SQLITE_BUSY or SQLITE_LOCKED.
+     */
+    static boolean isBusy(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLiteDatabaseLockedException) {
+                return true;
+            }
+
+            String message = cause.getMessage();
+            if (cause instanceof SQLiteException && message != null && message.contains("is locked")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
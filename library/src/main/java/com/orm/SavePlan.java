@@ -0,0 +1,347 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.orm.dsl.Relationship;
+import com.orm.util.BindingPlan;
+import com.orm.util.ColumnBinder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Plans the save of an object graph. The records reachable through {@link Relationship} fields
+ * are collected in a single walk and grouped by class. On execution every group is written with
+ * batched inserts, classes referenced by a column before the classes referencing them, and the
+ * join table rows are written last, once every id is known.
+ */
+class SavePlan {
+    private static final String SUGAR = "Sugar";
+
+    private static final Map<Class<?>, List<ColumnBinder>> relationshipFields = Collections.synchronizedMap(new HashMap<Class<?>, List<ColumnBinder>>());
+    private static final Map<Class<?>, List<ColumnBinder>> referenceColumns = Collections.synchronizedMap(new HashMap<Class<?>, List<ColumnBinder>>());
+    private static final Map<Field, Method> getters = Collections.synchronizedMap(new HashMap<Field, Method>());
+
+    private final Map<Class<?>, List<Object>> records = new LinkedHashMap<>();
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    private final List<JoinRow> joinRows = new ArrayList<>();
+
+    /**
+     * Adds the object and every record it cascades to.
+     */
+    void add(Object object) {
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(object);
+
+        while (!pending.isEmpty()) {
+            Object record = pending.pop();
+            if (!visited.add(record)) {
+                continue;
+            }
+
+            Class<?> type = record.getClass();
+            //Tracked classes write only the changed columns of a partial entity
+            if (!ChangeTracker.isTracked(type)) {
+                SugarRecord.checkComplete(record);
+            }
+
+            List<Object> group = records.get(type);
+            if (group == null) {
+                group = new ArrayList<>();
+                records.put(type, group);
+            }
+            group.add(record);
+
+            for (ColumnBinder binder : getRelationshipFields(type)) {
+                Relationship relationship = binder.getField().getAnnotation(Relationship.class);
+                Object value = getFieldValue(binder, record);
+
+                if (Collection.class.isAssignableFrom(binder.getField().getType())) {
+                    if (value == null) {
+                        continue;
+                    }
+
+                    for (Object child : (Collection) value) {
+                        if (child == null) continue;
+
+                        if (!SugarRecord.isSugarEntity(child.getClass())) {
+                            break;
+                        }
+
+                        //NOTE: If cascading = false, the child object must already exist or no join row is written.
+                        joinRows.add(new JoinRow(relationship, record, child));
+                        if (relationship.cascade()) {
+                            pending.push(child);
+                        }
+                    }
+                } else if (value != null && SugarRecord.isSugarEntity(value.getClass())) {
+                    joinRows.add(new JoinRow(relationship, record, value));
+                    pending.push(value);
+                }
+            }
+        }
+    }
+
+    void execute(final SQLiteDatabase db) {
+        final List<Object> written = new ArrayList<>();
+        boolean isSuccessful = false;
+
+        try {
+            SugarTransactionHelper.runInTransaction(db, TransactionMode.IMMEDIATE, new SugarTransactionHelper.ResultCallback<Void>() {
+                @Override
+                public Void manipulateInTransaction() {
+                    write(db, written);
+                    return null;
+                }
+            });
+            isSuccessful = true;
+        } finally {
+            for (Class<?> type : records.keySet()) {
+                getSugarContext().invalidateCaches(type);
+            }
+            for (JoinRow joinRow : joinRows) {
+                getSugarContext().invalidateJoinTable(joinRow.relationship.joinTable());
+            }
+        }
+
+        //Snapshots of rolled back rows would hide their changes from a retry
+        if (isSuccessful) {
+            SugarSession session = SugarSession.current();
+            for (Object record : written) {
+                ChangeTracker.snapshot(record);
+                if (session != null) {
+                    session.put(record);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param written receives the written records
+     */
+    private void write(SQLiteDatabase db, List<Object> written) {
+        List<Object> unresolved = new ArrayList<>();
+
+        for (Class<?> type : getClassOrder()) {
+            List<Object> group = records.get(type);
+            collectUnresolved(type, group, unresolved);
+
+            if (ChangeTracker.isTracked(type)) {
+                List<Object> inserts = new ArrayList<>();
+                for (Object record : group) {
+                    if (ChangeTracker.saveChanges(record) == ChangeTracker.NOT_TRACKED) {
+                        inserts.add(record);
+                    }
+                }
+                group = inserts;
+            }
+
+            if (EntityWriter.isMultiRowInsertSupported()) {
+                EntityWriter.insertAll(type, group);
+            } else {
+                for (Object record : group) {
+                    EntityWriter.insert(record);
+                }
+            }
+
+            written.addAll(records.get(type));
+        }
+
+        //Records referencing a record of their own class, or of a class in a reference cycle,
+        //were written before the referenced id was known.
+        for (Object record : unresolved) {
+            EntityWriter.insert(record);
+            written.add(record);
+        }
+
+        writeJoinRows(db);
+    }
+
+    private void collectUnresolved(Class<?> type, List<Object> group, List<Object> unresolved) {
+        List<ColumnBinder> columns = getReferenceColumns(type);
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        for (Object record : group) {
+            for (ColumnBinder column : columns) {
+                Object referenced = getFieldValue(column, record);
+                if (referenced != null && visited.contains(referenced) &&
+                        EntityWriter.getIdValue(referenced, EntityWriter.getIdField(referenced.getClass()), entitiesMap) == null) {
+                    unresolved.add(record);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void writeJoinRows(SQLiteDatabase db) {
+        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        JoinTableWriter joinTableWriter = new JoinTableWriter();
+
+        for (JoinRow joinRow : joinRows) {
+            Long objectId = EntityWriter.getIdValue(joinRow.object, EntityWriter.getIdField(joinRow.object.getClass()), entitiesMap);
+            Long refObjectId = EntityWriter.getIdValue(joinRow.refObject, EntityWriter.getIdField(joinRow.refObject.getClass()), entitiesMap);
+
+            if (objectId == null || refObjectId == null) {
+                Log.w(SUGAR, "Skipping " + joinRow.relationship.joinTable() + " row, related record has not been saved");
+                continue;
+            }
+
+            joinTableWriter.add(joinRow.relationship, objectId, refObjectId);
+        }
+
+        joinTableWriter.write(db);
+    }
+
+    /**
+     * Orders the planned classes so that a class comes after the classes its columns reference.
+     * Classes in a reference cycle keep the order they were found in.
+     */
+    private List<Class<?>> getClassOrder() {
+        List<Class<?>> order = new ArrayList<>(records.size());
+        Set<Class<?>> seen = new HashSet<>();
+
+        for (Class<?> type : records.keySet()) {
+            addClass(type, order, seen);
+        }
+
+        return order;
+    }
+
+    private void addClass(Class<?> type, List<Class<?>> order, Set<Class<?>> seen) {
+        if (!seen.add(type)) {
+            return;
+        }
+
+        for (ColumnBinder column : getReferenceColumns(type)) {
+            for (Class<?> planned : records.keySet()) {
+                if (column.getField().getType().isAssignableFrom(planned)) {
+                    addClass(planned, order, seen);
+                }
+            }
+        }
+
+        order.add(type);
+    }
+
+    private static List<ColumnBinder> getRelationshipFields(Class<?> type) {
+        List<ColumnBinder> fields = relationshipFields.get(type);
+
+        if (fields == null) {
+            fields = new ArrayList<>();
+            for (ColumnBinder binder : BindingPlan.get(type).getTableBinders()) {
+                if (binder.getField().isAnnotationPresent(Relationship.class)) {
+                    fields.add(binder);
+                }
+            }
+            relationshipFields.put(type, fields);
+        }
+
+        return fields;
+    }
+
+    /**
+     * Lists the columns of a class that store the id of another entity.
+     */
+    private static List<ColumnBinder> getReferenceColumns(Class<?> type) {
+        List<ColumnBinder> columns = referenceColumns.get(type);
+
+        if (columns == null) {
+            columns = new ArrayList<>();
+            for (ColumnBinder column : BindingPlan.get(type).getInsertBinders()) {
+                if (column.isReference()) {
+                    columns.add(column);
+                }
+            }
+            referenceColumns.put(type, columns);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Reads a relationship through its getter, so getter logic is not omitted, and falls back to
+     * the field. Single references are only read through the getter when the field is set, to
+     * keep lazy loading getters from querying.
+     *
+     * Classes with a generated adapter are read through it alone, the processor maps their
+     * relationship fields directly, so saving them doesn't invoke getters reflectively.
+     */
+    private static Object getFieldValue(ColumnBinder binder, Object object) {
+        Field field = binder.getField();
+        Object value;
+        try {
+            value = binder.get(object);
+        } catch (IllegalAccessException e) {
+            Log.e(SUGAR, "Cannot read " + field.getName() + " of " + object.getClass().getSimpleName(), e);
+            return null;
+        }
+
+        if (!field.isAnnotationPresent(Relationship.class) ||
+                (value == null && !Collection.class.isAssignableFrom(field.getType())) ||
+                BindingPlan.get(object.getClass()).getAdapter() != null) {
+            return value;
+        }
+
+        Method getter = getGetter(field);
+        if (getter != null) {
+            try {
+                value = getter.invoke(object, (Object[]) null);
+            } catch (Exception e) {
+                //DO NOTHING: value already = field value
+            }
+        }
+
+        return value;
+    }
+
+    private static Method getGetter(Field field) {
+        if (getters.containsKey(field)) {
+            return getters.get(field);
+        }
+
+        String name = field.getName().substring(0, 1).toUpperCase() + field.getName().substring(1);
+        Method getter = null;
+        try {
+            getter = field.getDeclaringClass().getMethod("get" + name);
+        } catch (NoSuchMethodException e) {
+            try {
+                getter = field.getDeclaringClass().getMethod("is" + name);
+            } catch (NoSuchMethodException e1) {
+                //No getter available. Read the field
+            }
+        }
+
+        getters.put(field, getter);
+        return getter;
+    }
+
+    private static class JoinRow {
+        final Relationship relationship;
+        final Object object;
+        final Object refObject;
+
+        JoinRow(Relationship relationship, Object object, Object refObject) {
+            this.relationship = relationship;
+            this.object = object;
+            this.refObject = refObject;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.orm.util.NamingHelper;
+import com.orm.util.QueryBuilder;
+import com.orm.util.ReflectionUtil;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the compiled statements of a database connection, so SQLite only parses and plans
+ * the statements Sugar executes repeatedly once.
+ *
+ * A {@link SQLiteStatement} keeps its bindings between executions, callers must hold the
+ * statement's monitor while binding and executing it.
+ *
+ * Statements dropped from the cache are not closed: another thread may have just taken one and
+ * be about to bind it. They are released by the garbage collector once no caller holds them.
+ */
+class StatementCache {
+    /**
+     * Upper bound of the statements kept by SQL text, the least recently used one is dropped.
+     */
+    static final int MAX_STATEMENTS = 64;
+
+    private final SQLiteDatabase database;
+    private final Map<Class<?>, SQLiteStatement> insertStatements = new HashMap<>();
+    private final Map<Class<?>, SQLiteStatement> batchInsertStatements = new HashMap<>();
+    private final Map<Class<?>, Integer> batchInsertRows = new HashMap<>();
+    private final Map<String, SQLiteStatement> statements = new LinkedHashMap<String, SQLiteStatement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest) {
+            return size() > MAX_STATEMENTS;
+        }
+    };
+
+    StatementCache(SQLiteDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Returns the compiled INSERT OR REPLACE statement of the given entity. The bind positions
+     * follow {@link ReflectionUtil#getInsertColumns(Class)}, the ID is bound last.
+     */
+    synchronized SQLiteStatement getInsertStatement(Class<?> type) {
+        SQLiteStatement statement = insertStatements.get(type);
+
+        if (statement == null) {
+            statement = compileInsertStatement(type, 1);
+            insertStatements.put(type, statement);
+        }
+
+        return statement;
+    }
+
+    /**
+     * Returns the compiled multi-row INSERT OR REPLACE statement of the given entity. Only one
+     * row count is kept per class, a statement for another row count replaces it.
+     */
+    synchronized SQLiteStatement getInsertStatement(Class<?> type, int rows) {
+        if (rows == 1) {
+            return getInsertStatement(type);
+        }
+
+        SQLiteStatement statement = batchInsertStatements.get(type);
+
+        if (statement == null || batchInsertRows.get(type) != rows) {
+            statement = compileInsertStatement(type, rows);
+            batchInsertStatements.put(type, statement);
+            batchInsertRows.put(type, rows);
+        }
+
+        return statement;
+    }
+
+    /**
+     * Compiles an INSERT OR REPLACE statement for the given number of rows that is not kept in
+     * the cache, the caller has to close it.
+     */
+    SQLiteStatement compileInsertStatement(Class<?> type, int rows) {
+        return database.compileStatement(QueryBuilder.getInsertSQL(NamingHelper.toSQLName(type), getColumnNames(type), rows));
+    }
+
+    /**
+     * Returns the compiled native upsert statement of the given entity, binds like
+     * {@link #getInsertStatement(Class, int)}.
+     */
+    synchronized SQLiteStatement getUpsertStatement(Class<?> type, int rows) {
+        return getStatement(QueryBuilder.getUpsertSQL(NamingHelper.toSQLName(type), getColumnNames(type), rows));
+    }
+
+    /**
+     * Compiles a native upsert statement that is not kept in the cache, the caller has to close it.
+     */
+    SQLiteStatement compileUpsertStatement(Class<?> type, int rows) {
+        return database.compileStatement(QueryBuilder.getUpsertSQL(NamingHelper.toSQLName(type), getColumnNames(type), rows));
+    }
+
+    /**
+     * Returns the compiled UPDATE statement writing every column of the row with a given ID,
+     * binds like {@link #getInsertStatement(Class)}.
+     */
+    synchronized SQLiteStatement getUpdateStatement(Class<?> type) {
+        List<String> columnNames = getColumnNames(type);
+        return getStatement(QueryBuilder.getUpdateSQL(NamingHelper.toSQLName(type), columnNames.subList(0, columnNames.size() - 1)));
+    }
+
+    /**
+     * Returns the compiled statement for the given SQL.
+     */
+    synchronized SQLiteStatement getStatement(String sql) {
+        SQLiteStatement statement = statements.get(sql);
+
+        if (statement == null) {
+            statement = database.compileStatement(sql);
+            statements.put(sql, statement);
+        }
+
+        return statement;
+    }
+
+    private static List<String> getColumnNames(Class<?> type) {
+        List<Field> columns = ReflectionUtil.getInsertColumns(type);
+        List<String> columnNames = new ArrayList<>(columns.size() + 1);
+        for (Field column : columns) {
+            columnNames.add(NamingHelper.toSQLName(column));
+        }
+        columnNames.add("ID");
+        return columnNames;
+    }
+
+    synchronized void clear() {
+        for (SQLiteStatement statement : insertStatements.values()) {
+            statement.close();
+        }
+        for (SQLiteStatement statement : batchInsertStatements.values()) {
+            statement.close();
+        }
+        for (SQLiteStatement statement : statements.values()) {
+            statement.close();
+        }
+        insertStatements.clear();
+        statements.clear();
+        batchInsertStatements.clear();
+        batchInsertRows.clear();
+    }
+}
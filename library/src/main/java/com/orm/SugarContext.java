@@ -5,7 +5,10 @@ import android.content.Context;
 import com.orm.util.ContextUtil;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.WeakHashMap;
 
 public class SugarContext {
@@ -13,10 +16,19 @@ public class SugarContext {
     private static SugarContext instance = null;
     private SugarDb sugarDb;
     private Map<Object, Long> entitiesMap;
+    private Map<Object, Object[]> snapshotsMap;
+    private Set<Object> partialEntities;
+    private final Map<Class<?>, EntityCache> entityCaches = new HashMap<>();
+    private WriteBehindQueue writeBehindQueue;
+    private volatile QueryCache queryCache;
+    private final ThreadLocal<PendingInvalidations> pendingInvalidations = new ThreadLocal<>();
+    private volatile RetryPolicy retryPolicy = new RetryPolicy();
 
     private SugarContext() {
         this.sugarDb = SugarDb.getInstance();
         this.entitiesMap = Collections.synchronizedMap(new WeakHashMap<Object, Long>());
+        this.snapshotsMap = Collections.synchronizedMap(new WeakHashMap<Object, Object[]>());
+        this.partialEntities = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Object, Boolean>()));
     }
     
     public static SugarContext getSugarContext() {
@@ -39,8 +51,64 @@ public class SugarContext {
         ContextUtil.terminate();
     }
 
+    /**
+     * Starts the {@link WriteBehindQueue}, replacing a queue started before once its pending
+     * saves are written.
+     *
+     * @param maxBatchSize the maximum number of saves committed in one transaction
+     * @param maxLatencyMillis how long a save may wait for more saves to join its transaction
+     */
+    public static synchronized void enableWriteBehind(int maxBatchSize, long maxLatencyMillis) {
+        SugarContext sugarContext = getSugarContext();
+        if (sugarContext.writeBehindQueue != null) {
+            sugarContext.writeBehindQueue.shutdown();
+        }
+        sugarContext.writeBehindQueue = new WriteBehindQueue(maxBatchSize, maxLatencyMillis);
+    }
+
+    /**
+     * Starts caching query results, dropping the results cached before.
+     *
+     * @param maxEntries the maximum number of results kept
+     * @param ttlMillis how long a result is kept, or 0 to keep it until its tables are written
+     */
+    public static synchronized void enableQueryCache(int maxEntries, long ttlMillis) {
+        getSugarContext().queryCache = new QueryCache(maxEntries, ttlMillis);
+    }
+
+    public static synchronized void disableQueryCache() {
+        getSugarContext().queryCache = null;
+    }
+
+    /**
+     * Returns the query result cache, or null if it is not enabled.
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Returns the write-behind queue, or null if it is not enabled.
+     */
+    public WriteBehindQueue getWriteBehindQueue() {
+        return writeBehindQueue;
+    }
+
+    /**
+     * Returns the policy retrying the transactions of {@link SugarTransactionHelper} and the
+     * *InTx methods of {@link SugarRecord} that found the database locked.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = (retryPolicy != null) ? retryPolicy : RetryPolicy.noRetries();
+    }
+
     public void clearDb() {
         instance.getSugarDb().clearDb();
+        invalidateAllCaches();
     }
 
     /*
@@ -50,7 +118,12 @@ public class SugarContext {
      * Robolectric Android mock.
      */
     private void doTerminate() {
+        if (this.writeBehindQueue != null) {
+            this.writeBehindQueue.shutdown();
+            this.writeBehindQueue = null;
+        }
         if (this.sugarDb != null) {
+            this.sugarDb.clearStatementCache();
             this.sugarDb.getDB().close();
         }
     }
@@ -62,4 +135,126 @@ public class SugarContext {
     Map<Object, Long> getEntitiesMap() {
         return entitiesMap;
     }
+
+    Map<Object, Object[]> getSnapshotsMap() {
+        return snapshotsMap;
+    }
+
+    /**
+     * The entities read with only some of their columns.
+     */
+    Set<Object> getPartialEntities() {
+        return partialEntities;
+    }
+
+    synchronized EntityCache getEntityCache(Class<?> type, int maxEntries) {
+        EntityCache entityCache = entityCaches.get(type);
+        if (entityCache == null) {
+            entityCache = new EntityCache(maxEntries);
+            entityCaches.put(type, entityCache);
+        }
+        return entityCache;
+    }
+
+    /**
+     * Drops what the entity and query caches hold of a class whose table was written. Inside a
+     * transaction the caches are dropped again once the outermost transaction ends, as other
+     * connections read the old rows until it commits and could cache them meanwhile.
+     */
+    void invalidateCaches(Class<?> type) {
+        EntityCache entityCache = EntityCache.of(type);
+        if (entityCache != null) {
+            entityCache.clear();
+        }
+
+        QueryCache queryCache = this.queryCache;
+        if (queryCache != null) {
+            queryCache.invalidate(QueryCache.tableOf(type));
+        }
+
+        PendingInvalidations pending = getPendingInvalidations();
+        if (pending != null) {
+            pending.types.add(type);
+        }
+    }
+
+    void invalidateJoinTable(String joinTable) {
+        QueryCache queryCache = this.queryCache;
+        if (queryCache != null) {
+            queryCache.invalidate(joinTable);
+        }
+
+        PendingInvalidations pending = getPendingInvalidations();
+        if (pending != null) {
+            pending.joinTables.add(joinTable);
+        }
+    }
+
+    /**
+     * Drops everything the entity and query caches hold, after statements that may have written
+     * any table.
+     */
+    void invalidateAllCaches() {
+        synchronized (this) {
+            for (EntityCache entityCache : entityCaches.values()) {
+                entityCache.clear();
+            }
+        }
+
+        QueryCache queryCache = this.queryCache;
+        if (queryCache != null) {
+            queryCache.clear();
+        }
+
+        PendingInvalidations pending = getPendingInvalidations();
+        if (pending != null) {
+            pending.isAll = true;
+        }
+    }
+
+    /**
+     * Repeats the invalidations of the transaction the calling thread ended, committed or rolled
+     * back. Does nothing while the thread is still in a transaction.
+     */
+    void flushInvalidations() {
+        PendingInvalidations pending = pendingInvalidations.get();
+        if (pending == null || sugarDb.getDB().inTransaction()) {
+            return;
+        }
+
+        pendingInvalidations.remove();
+        if (pending.isAll) {
+            invalidateAllCaches();
+            return;
+        }
+        for (Class<?> type : pending.types) {
+            invalidateCaches(type);
+        }
+        for (String joinTable : pending.joinTables) {
+            invalidateJoinTable(joinTable);
+        }
+    }
+
+    /**
+     * @return the invalidations to repeat when the transaction of the calling thread ends, or
+     * null if it is not in one
+     */
+    private PendingInvalidations getPendingInvalidations() {
+        if (!sugarDb.getDB().inTransaction()) {
+            return null;
+        }
+
+        PendingInvalidations pending = pendingInvalidations.get();
+        if (pending == null) {
+            pending = new PendingInvalidations();
+            pendingInvalidations.set(pending);
+        }
+        return pending;
+    }
+
+    private static final class PendingInvalidations {
+        final Set<Class<?>> types = new HashSet<>();
+        final Set<String> joinTables = new HashSet<>();
+        boolean isAll;
+    }
 }
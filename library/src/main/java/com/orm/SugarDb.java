@@ -1,7 +1,9 @@
 package com.orm;
 
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Build;
 import android.util.Log;
 
 import com.orm.util.ManifestHelper;
@@ -15,13 +17,18 @@ public class SugarDb extends SQLiteOpenHelper {
     private static final String LOG_TAG = "Sugar";
 
     private final SchemaGenerator schemaGenerator;
-    private SQLiteDatabase sqLiteDatabase;
+    private volatile SQLiteDatabase sqLiteDatabase;
+    private StatementCache statementCache;
+    private boolean writeAheadLoggingEnabled;
+    private int busyTimeout;
     private int openedConnections = 0;
 
     //Prevent instantiation
     private SugarDb() {
         super(getContext(), getDbName(), new SugarCursorFactory(ManifestHelper.isDebugEnabled()), getDatabaseVersion());
         schemaGenerator = SchemaGenerator.getInstance();
+        setWriteAheadLoggingEnabled(ManifestHelper.isWriteAheadLoggingEnabled());
+        busyTimeout = ManifestHelper.getBusyTimeout();
     }
 
     public static SugarDb getInstance() {
@@ -33,17 +40,121 @@ public class SugarDb extends SQLiteOpenHelper {
         schemaGenerator.createDatabase(sqLiteDatabase);
     }
 
+    @Override
+    public void onOpen(SQLiteDatabase sqLiteDatabase) {
+        super.onOpen(sqLiteDatabase);
+        if (busyTimeout > 0) {
+            applyBusyTimeout(sqLiteDatabase, busyTimeout);
+        }
+    }
+
     @Override
     public void onUpgrade(SQLiteDatabase sqLiteDatabase, int oldVersion, int newVersion) {
         schemaGenerator.doUpgrade(sqLiteDatabase, oldVersion, newVersion);
     }
 
-    public synchronized SQLiteDatabase getDB() {
-        if (this.sqLiteDatabase == null) {
-            this.sqLiteDatabase = getWritableDatabase();
+    /**
+     * Returns the database. Once it is open this doesn't lock, so reading threads don't wait for
+     * each other or for a writing thread here.
+     */
+    public SQLiteDatabase getDB() {
+        SQLiteDatabase database = this.sqLiteDatabase;
+        if (database != null) {
+            return database;
+        }
+
+        synchronized (this) {
+            if (this.sqLiteDatabase == null) {
+                database = getWritableDatabase();
+                if (writeAheadLoggingEnabled && Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+                    enableWriteAheadLogging(database);
+                }
+                this.sqLiteDatabase = database;
+            }
+
+            return this.sqLiteDatabase;
+        }
+    }
+
+    /**
+     * Enables or disables write-ahead logging, which lets reads run while a transaction writes.
+     * With it enabled SQLiteDatabase keeps a pool of read connections besides the primary
+     * connection: queries of threads outside a transaction run on the read connections, writes
+     * and transactions on the primary one. Needs API level 11 and is ignored below.
+     */
+    @Override
+    public synchronized void setWriteAheadLoggingEnabled(boolean enabled) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            return;
+        }
+
+        writeAheadLoggingEnabled = enabled;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            super.setWriteAheadLoggingEnabled(enabled);
+        } else if (this.sqLiteDatabase != null) {
+            if (enabled) {
+                enableWriteAheadLogging(this.sqLiteDatabase);
+            } else {
+                this.sqLiteDatabase.disableWriteAheadLogging();
+            }
+        }
+    }
+
+    public synchronized boolean isWriteAheadLoggingEnabled() {
+        return writeAheadLoggingEnabled;
+    }
+
+    /**
+     * Sets how long the database waits for a lock held by another connection before it fails
+     * with SQLITE_BUSY. The timeout is set on the primary connection, which runs every write.
+     */
+    public synchronized void setBusyTimeout(int busyTimeout) {
+        this.busyTimeout = busyTimeout;
+        if (this.sqLiteDatabase != null) {
+            applyBusyTimeout(this.sqLiteDatabase, busyTimeout);
+        }
+    }
+
+    public synchronized int getBusyTimeout() {
+        return busyTimeout;
+    }
+
+    private static void applyBusyTimeout(SQLiteDatabase database, int busyTimeout) {
+        //The transaction runs the pragma on the primary connection rather than a read connection
+        database.beginTransaction();
+        try {
+            //The pragma returns the new timeout as a row, which execSQL refuses
+            Cursor cursor = database.rawQuery("PRAGMA busy_timeout = " + busyTimeout, null);
+            try {
+                cursor.moveToFirst();
+            } finally {
+                cursor.close();
+            }
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+    }
+
+    private static void enableWriteAheadLogging(SQLiteDatabase database) {
+        if (!database.enableWriteAheadLogging()) {
+            Log.w(LOG_TAG, "Write-ahead logging could not be enabled");
+        }
+    }
+
+    synchronized StatementCache getStatementCache() {
+        if (this.statementCache == null) {
+            this.statementCache = new StatementCache(getDB());
         }
 
-        return this.sqLiteDatabase;
+        return this.statementCache;
+    }
+
+    synchronized void clearStatementCache() {
+        if (this.statementCache != null) {
+            this.statementCache.clear();
+            this.statementCache = null;
+        }
     }
 
     public void clearDb() {
@@ -63,6 +174,7 @@ public class SugarDb extends SQLiteOpenHelper {
         openedConnections--;
         if(openedConnections == 0) {
             Log.d(LOG_TAG, "closing");
+            clearStatementCache();
             super.close();
         }
     }
@@ -8,12 +8,12 @@ import android.database.sqlite.SQLiteStatement;
 import android.text.TextUtils;
 import android.util.Log;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
-import com.orm.dsl.Id;
 import com.orm.dsl.Relationship;
 import com.orm.dsl.Table;
 import com.orm.dsl.Unique;
+import com.orm.query.Aggregate;
+import com.orm.query.AggregateResult;
+import com.orm.util.ColumnBinder;
 import com.orm.util.ManifestHelper;
 import com.orm.util.NamingHelper;
 import com.orm.util.QueryBuilder;
@@ -21,11 +21,16 @@ import com.orm.util.ReflectionUtil;
 import com.orm.util.SugarCursor;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -47,7 +52,13 @@ public class SugarRecord {
     }
 
     public static <T> int deleteAll(Class<T> type, String whereClause, String... whereArgs) {
-        return getSugarDataBase().delete(NamingHelper.toSQLName(type), whereClause, whereArgs);
+        int deletedRows = getSugarDataBase().delete(NamingHelper.toSQLName(type), whereClause, whereArgs);
+        SugarSession session = SugarSession.current();
+        if (session != null) {
+            session.evictAll(type);
+        }
+        getSugarContext().invalidateCaches(type);
+        return deletedRows;
     }
 
     public static <T> Cursor getCursor(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
@@ -56,78 +67,105 @@ public class SugarRecord {
         return new SugarCursor(raw);
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> void saveInTx(T... objects) {
         saveInTx(Arrays.asList(objects));
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> void saveInTx(Collection<T> objects) {
-        SQLiteDatabase sqLiteDatabase = getSugarDataBase();
         try {
-            sqLiteDatabase.beginTransaction();
-            sqLiteDatabase.setLockingEnabled(false);
+            final SavePlan savePlan = new SavePlan();
             for (T object: objects) {
-                save(getSugarContext().getSugarDb().getDB(), object);
+                savePlan.add(object);
             }
-            sqLiteDatabase.setTransactionSuccessful();
-        } catch (Exception e) {
-            Log.i(SUGAR, "Error in saving in transaction " + e.getMessage());
-        } finally {
-            sqLiteDatabase.endTransaction();
-            sqLiteDatabase.setLockingEnabled(true);
+            getSugarContext().getRetryPolicy().execute(new SugarTransactionHelper.ResultCallback<Void>() {
+                @Override
+                public Void manipulateInTransaction() {
+                    savePlan.execute(getSugarDataBase());
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            //The writes are lost once the retry policy gives up on a locked database
+            if (RetryPolicy.isBusy(e)) {
+                throw e;
+            }
+            Log.e(SUGAR, "Error in saving in transaction " + e.getMessage());
         }
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> void updateInTx(T... objects) {
         updateInTx(Arrays.asList(objects));
     }
 
-    @SuppressWarnings("deprecation")
-    public static <T> void updateInTx(Collection<T> objects) {
-        SQLiteDatabase sqLiteDatabase = getSugarDataBase();
+    public static <T> void updateInTx(final Collection<T> objects) {
         try {
-            sqLiteDatabase.beginTransaction();
-            sqLiteDatabase.setLockingEnabled(false);
-            for (T object: objects) {
-                update(object);
+            getSugarContext().getRetryPolicy().execute(new SugarTransactionHelper.ResultCallback<Void>() {
+                @Override
+                public Void manipulateInTransaction() {
+                    return SugarTransactionHelper.runInTransaction(getSugarDataBase(), TransactionMode.IMMEDIATE, new SugarTransactionHelper.ResultCallback<Void>() {
+                        @Override
+                        public Void manipulateInTransaction() {
+                            for (T object: objects) {
+                                update(object);
+                            }
+                            return null;
+                        }
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            if (RetryPolicy.isBusy(e)) {
+                throw e;
             }
-            sqLiteDatabase.setTransactionSuccessful();
-        } catch (Exception e) {
-            Log.i(SUGAR, "Error in saving in transaction " + e.getMessage());
-        } finally {
-            sqLiteDatabase.endTransaction();
-            sqLiteDatabase.setLockingEnabled(true);
+            Log.e(SUGAR, "Error in saving in transaction " + e.getMessage());
         }
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> int deleteInTx(T... objects) {
         return deleteInTx(Arrays.asList(objects));
     }
 
-    @SuppressWarnings("deprecation")
     public static <T> int deleteInTx(Collection<T> objects) {
-        SQLiteDatabase sqLiteDatabase = getSugarDataBase();
-        int deletedRows = 0;
+        final Map<Class<?>, List<Long>> idsByType = new LinkedHashMap<>();
+        for (T object : objects) {
+            Long id = getDeleteId(object);
+            if (id == null) {
+                continue;
+            }
+
+            List<Long> ids = idsByType.get(object.getClass());
+            if (ids == null) {
+                ids = new ArrayList<>();
+                idsByType.put(object.getClass(), ids);
+            }
+            ids.add(id);
+        }
+
         try {
-            sqLiteDatabase.beginTransaction();
-            sqLiteDatabase.setLockingEnabled(false);
-            for (T object : objects) {
-                if (delete(object)) {
-                    ++deletedRows;
+            int deletedCount = getSugarContext().getRetryPolicy().execute(new SugarTransactionHelper.ResultCallback<Integer>() {
+                @Override
+                public Integer manipulateInTransaction() {
+                    return SugarTransactionHelper.runInTransaction(getSugarDataBase(), TransactionMode.IMMEDIATE, new SugarTransactionHelper.ResultCallback<Integer>() {
+                        @Override
+                        public Integer manipulateInTransaction() {
+                            int deletedRows = 0;
+                            for (Map.Entry<Class<?>, List<Long>> entry : idsByType.entrySet()) {
+                                deletedRows += EntityWriter.deleteAll(entry.getKey(), entry.getValue());
+                            }
+                            return deletedRows;
+                        }
+                    });
                 }
+            });
+            evict(idsByType);
+            return deletedCount;
+        } catch (RuntimeException e) {
+            if (RetryPolicy.isBusy(e)) {
+                throw e;
             }
-            sqLiteDatabase.setTransactionSuccessful();
-        } catch (Exception e) {
-            deletedRows = 0;
-            Log.i(SUGAR, "Error in deleting in transaction " + e.getMessage());
-        } finally {
-            sqLiteDatabase.endTransaction();
-            sqLiteDatabase.setLockingEnabled(true);
+            Log.e(SUGAR, "Error in deleting in transaction " + e.getMessage());
+            return 0;
         }
-        return deletedRows;
     }
 
     public static <T> List<T> listAll(Class<T> type) {
@@ -139,8 +177,29 @@ public class SugarRecord {
     }
 
     public static <T> T findById(Class<T> type, Long id) {
+        SugarSession session = SugarSession.current();
+        if (session != null && id != null) {
+            T entity = session.get(type, id);
+            if (entity != null) {
+                return entity;
+            }
+        }
+
+        EntityCache entityCache = (id != null) ? EntityCache.of(type) : null;
+        long generation = 0;
+        if (entityCache != null) {
+            Object cached = entityCache.get(id);
+            if (cached != null) {
+                return fromEntityCache(type, cached);
+            }
+            generation = entityCache.getGeneration();
+        }
+
         List<T> list = find(type, "id=?", new String[]{String.valueOf(id)}, null, null, "1");
         if (list.isEmpty()) return null;
+        if (entityCache != null) {
+            entityCache.put(id, list.get(0), generation);
+        }
         return list.get(0);
     }
 
@@ -154,23 +213,68 @@ public class SugarRecord {
     }
 
     public static <T> T first(Class<T>type) {
+        EntityCache entityCache = EntityCache.of(type);
+        long generation = 0;
+        if (entityCache != null) {
+            Object cached = entityCache.getFirst();
+            if (cached != null) {
+                return fromEntityCache(type, cached);
+            }
+            generation = entityCache.getGeneration();
+        }
+
         List<T> list = findWithQuery(type,
                 "SELECT * FROM " + NamingHelper.toSQLName(type) + " ORDER BY ID ASC LIMIT 1");
         if (list.isEmpty()) {
             return null;
         }
+        if (entityCache != null) {
+            entityCache.putFirst(list.get(0), generation);
+        }
         return list.get(0);
     }
 
     public static <T> T last(Class<T>type) {
+        EntityCache entityCache = EntityCache.of(type);
+        long generation = 0;
+        if (entityCache != null) {
+            Object cached = entityCache.getLast();
+            if (cached != null) {
+                return fromEntityCache(type, cached);
+            }
+            generation = entityCache.getGeneration();
+        }
+
         List<T> list = findWithQuery(type,
                 "SELECT * FROM " + NamingHelper.toSQLName(type) + " ORDER BY ID DESC LIMIT 1");
         if (list.isEmpty()) {
             return null;
         }
+        if (entityCache != null) {
+            entityCache.putLast(list.get(0), generation);
+        }
         return list.get(0);
     }
 
+    /**
+     * Hands out a cached entity through the open session, so the session still holds a single
+     * instance of each row it has seen.
+     */
+    private static <T> T fromEntityCache(Class<T> type, Object cached) {
+        SugarSession session = SugarSession.current();
+        Long id = EntityWriter.getIdValue(cached, EntityWriter.getIdField(type), getSugarContext().getEntitiesMap());
+        if (session == null || id == null) {
+            return type.cast(cached);
+        }
+
+        T entity = session.get(type, id);
+        if (entity != null) {
+            return entity;
+        }
+        session.put(type, id, cached);
+        return type.cast(cached);
+    }
+
     public static <T> Iterator<T> findAll(Class<T> type) {
         return findAsIterator(type, null, null, null, null, null);
     }
@@ -195,6 +299,13 @@ public class SugarRecord {
     }
 
     public static <T> List<T> findWithQuery(Class<T> type, String query, String... arguments) {
+        QueryCache queryCache = getQueryCache();
+        if (queryCache != null) {
+            Set<String> tables = new HashSet<>(QueryCache.tablesOf(query));
+            tables.addAll(QueryCache.tablesRead(type));
+            return findCached(queryCache, type, query, arguments, tables);
+        }
+
         Cursor cursor = getSugarDataBase().rawQuery(query, arguments);
 
         return  getEntitiesFromCursor(cursor, type);
@@ -202,6 +313,33 @@ public class SugarRecord {
 
     public static void executeQuery(String query, String... arguments) {
         getSugarDataBase().execSQL(query, arguments);
+        getSugarContext().invalidateAllCaches();
+    }
+
+    /**
+     * Executes an UPDATE or DELETE statement through the statement cache. The arguments are
+     * bound by their type, as they would be stored in a column.
+     *
+     * @return the number of rows changed
+     */
+    public static int executeUpdateDelete(String query, Object... arguments) {
+        SQLiteStatement statement = getSugarContext().getSugarDb().getStatementCache().getStatement(query);
+        int changedRows;
+        synchronized (statement) {
+            statement.clearBindings();
+            for (int i = 0; i < arguments.length; i++) {
+                ReflectionUtil.bindValue(statement, i + 1, ReflectionUtil.toColumnValue(arguments[i]));
+            }
+            changedRows = EntityWriter.executeUpdateDelete(statement);
+        }
+
+        //The statement may have changed any row the session or the caches hold
+        SugarSession session = SugarSession.current();
+        if (session != null) {
+            session.clear();
+        }
+        getSugarContext().invalidateAllCaches();
+        return changedRows;
     }
 
     public static <T> List<T> findByRelationship(Class<T> type, Relationship relationship, String where, String groupBy, String orderBy, String limit) {
@@ -232,11 +370,15 @@ public class SugarRecord {
         Cursor c = getSugarDataBase().rawQuery(sb.toString(), new String[0]);
 
         try {
+            CursorColumns cursorColumns = new CursorColumns(c, type);
+            Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+            ReferenceLoader referenceLoader = new ReferenceLoader();
+            SugarSession session = SugarSession.current();
             while (c.moveToNext()) {
-                entity = type.getDeclaredConstructor().newInstance();
-                inflate(c, entity, getSugarContext().getEntitiesMap());
+                entity = readEntity(c, type, cursorColumns, entitiesMap, referenceLoader, session);
                 toRet.add(entity);
             }
+            referenceLoader.load();
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
@@ -287,21 +429,98 @@ public class SugarRecord {
         String args[];
         args = (whereArgs == null) ? null : replaceArgs(whereArgs);
 
+        QueryCache queryCache = getQueryCache();
+        if (queryCache != null) {
+            StringBuilder sql = new StringBuilder("SELECT * FROM ").append(NamingHelper.toSQLName(type));
+            appendClause(sql, " WHERE ", whereClause);
+            appendClause(sql, " GROUP BY ", groupBy);
+            appendClause(sql, " ORDER BY ", orderBy);
+            appendClause(sql, " LIMIT ", limit);
+            return findCached(queryCache, type, sql.toString(), args, QueryCache.tablesRead(type));
+        }
+
         Cursor cursor = getSugarDataBase().query(NamingHelper.toSQLName(type), null, whereClause, args,
                 groupBy, null, orderBy, limit);
 
         return getEntitiesFromCursor(cursor, type);
     }
 
-    public static <T> List<T> getEntitiesFromCursor(Cursor cursor, Class<T> type){
-        T entity;
-        List<T> result = new ArrayList<>();
+    /**
+     * @return the query cache, or null if it is disabled or the calling thread must not share
+     * cached results, inside a session or a transaction that may still roll back
+     */
+    private static QueryCache getQueryCache() {
+        QueryCache queryCache = getSugarContext().getQueryCache();
+        if (queryCache == null || SugarSession.current() != null || getSugarDataBase().inTransaction()) {
+            return null;
+        }
+
+        //Transactions opened on the database directly end without flushing their invalidations
+        getSugarContext().flushInvalidations();
+        return queryCache;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> findCached(QueryCache queryCache, Class<T> type, String sql, String[] args, Set<String> tables) {
+        String key = QueryCache.key(type.getName(), sql, args);
         try {
+            List<T> cached = (List<T>) queryCache.get(key);
+            if (cached != null) {
+                return new EntityCopier().copy(cached);
+            }
+
+            long generation = queryCache.getGeneration();
+            List<T> result = getEntitiesFromCursor(getSugarDataBase().rawQuery(sql, args), type);
+            queryCache.put(key, new EntityCopier().copy(result), tables, generation);
+            return result;
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            Log.e(SUGAR, "Cannot copy " + type.getSimpleName() + " entities, reading them without the query cache", e);
+            return getEntitiesFromCursor(getSugarDataBase().rawQuery(sql, args), type);
+        }
+    }
+
+    /**
+     * Reads only the id and the given properties of the matching rows, leaving the other fields
+     * of the entities at their defaults. Partial entities are kept out of the session and the
+     * caches. Saving or updating one throws an {@link IllegalStateException}, as it would write
+     * the defaults over the unread columns, unless its class is {@link com.orm.dsl.TrackChanges},
+     * which writes only the changed columns.
+     *
+     * @param properties the names of the fields to read
+     */
+    public static <T> List<T> findColumns(Class<T> type, String[] properties, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+        String[] columns = toColumnNames(type, properties, true);
+        String[] args = (whereArgs == null) ? null : replaceArgs(whereArgs);
+        Cursor cursor = getSugarDataBase().query(NamingHelper.toSQLName(type), columns, whereClause, args,
+                groupBy, null, orderBy, limit);
+
+        return readEntities(cursor, type, null, getSugarContext().getPartialEntities());
+    }
+
+    /**
+     * Reads the matching rows of an entity table into instances of another class, such as a
+     * plain data class. Each field of the result class is read from the column it would be
+     * stored in, and fields without a column in the table are left at their defaults.
+     *
+     * @param properties the names of the fields of the entity to read, or null to read every
+     *                   column the result class has a field for
+     */
+    public static <D> List<D> findInto(Class<D> resultType, Class<?> type, String[] properties, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+        String[] columns = (properties != null) ? toColumnNames(type, properties, false) : sharedColumnNames(resultType, type);
+        String[] args = (whereArgs == null) ? null : replaceArgs(whereArgs);
+        Cursor cursor = getSugarDataBase().query(NamingHelper.toSQLName(type), columns, whereClause, args,
+                groupBy, null, orderBy, limit);
+
+        List<D> result = new ArrayList<>();
+        try {
+            CursorColumns cursorColumns = new CursorColumns(cursor, resultType);
+            ReferenceLoader referenceLoader = new ReferenceLoader();
             while (cursor.moveToNext()) {
-                entity = type.getDeclaredConstructor().newInstance();
-                inflate(cursor, entity, getSugarContext().getEntitiesMap());
-                result.add(entity);
+                D object = cursorColumns.newInstance(resultType);
+                readColumns(cursor, object, cursorColumns, referenceLoader);
+                result.add(object);
             }
+            referenceLoader.load();
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
@@ -311,148 +530,325 @@ public class SugarRecord {
         return result;
     }
 
-    public static <T> long count(Class<T> type) {
-        return count(type, null, null, null, null, null);
-    }
-
-    public static <T> long count(Class<T> type, String whereClause, String[] whereArgs) {
-    	return count(type, whereClause, whereArgs, null, null, null);
-    }
-
-    public static <T> long count(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
-        long result = -1;
-        String filter = (!TextUtils.isEmpty(whereClause)) ? " where "  + whereClause : "";
-        SQLiteStatement sqliteStatement;
+    /**
+     * Reads one property of the matching rows, without creating entities or boxing the values.
+     * Null values are read as 0.
+     */
+    public static long[] pluckLongs(Class<?> type, String property, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+        Cursor cursor = queryProperty(type, property, whereClause, whereArgs, groupBy, orderBy, limit);
         try {
-            sqliteStatement = getSugarDataBase().compileStatement("SELECT count(*) FROM " + NamingHelper.toSQLName(type) + filter);
-        } catch (SQLiteException e) {
-            e.printStackTrace();
-            return result;
+            long[] values = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                values[i] = cursor.getLong(0);
+            }
+            return values;
+        } finally {
+            cursor.close();
         }
+    }
 
-        if (whereArgs != null) {
-            for (int i = whereArgs.length; i != 0; i--) {
-                sqliteStatement.bindString(i, whereArgs[i - 1]);
+    /**
+     * Reads one property of the matching rows, without creating entities or boxing the values.
+     * Null values are read as 0.
+     */
+    public static double[] pluckDoubles(Class<?> type, String property, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+        Cursor cursor = queryProperty(type, property, whereClause, whereArgs, groupBy, orderBy, limit);
+        try {
+            double[] values = new double[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                values[i] = cursor.getDouble(0);
             }
+            return values;
+        } finally {
+            cursor.close();
         }
+    }
 
+    /**
+     * Reads one property of the matching rows, without creating entities.
+     */
+    public static String[] pluckStrings(Class<?> type, String property, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+        Cursor cursor = queryProperty(type, property, whereClause, whereArgs, groupBy, orderBy, limit);
         try {
-            result = sqliteStatement.simpleQueryForLong();
+            String[] values = new String[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                values[i] = cursor.getString(0);
+            }
+            return values;
         } finally {
-            sqliteStatement.close();
+            cursor.close();
         }
-
-        return result;
     }
 
-    public static long save(Object object) {
-        return save(getSugarDataBase(), object);
+    /**
+     * The cursor counts its rows before the first is read, so plucked arrays are allocated
+     * once, at their final size.
+     */
+    private static Cursor queryProperty(Class<?> type, String property, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+        String[] columns = toColumnNames(type, new String[] {property}, false);
+        String[] args = (whereArgs == null) ? null : replaceArgs(whereArgs);
+        return getSugarDataBase().query(NamingHelper.toSQLName(type), columns, whereClause, args,
+                groupBy, null, orderBy, limit);
     }
 
-    static void saveJoinTableList(SQLiteDatabase db, List<ContentValues> relationshipList, String joinTableName) {
-
-        for(ContentValues values: relationshipList) {
+    private static String[] toColumnNames(Class<?> type, String[] properties, boolean withId) {
+        List<String> columns = new ArrayList<>();
+        if (withId) {
+            columns.add("ID");
+        }
 
-            //If record already exists then ignore
-            long id = db.insertWithOnConflict(joinTableName, null, values,
-                    SQLiteDatabase.CONFLICT_IGNORE);
+        for (String property : properties) {
+            String column = NamingHelper.toSQLName(getTableField(type, property));
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
 
-            Log.i("Sugar", "Inserted Join table record for " + joinTableName + ".");
+        return columns.toArray(new String[columns.size()]);
+    }
 
+    private static Field getTableField(Class<?> type, String property) {
+        for (Field tableField : ReflectionUtil.getTableFields(type)) {
+            if (tableField.getName().equals(property)) {
+                return tableField;
+            }
         }
+
+        throw new IllegalArgumentException(type.getSimpleName() + " has no column for property " + property);
     }
 
-    static void saveJoinTable(SQLiteDatabase db, ContentValues values, String joinTableName) {
+    private static String[] sharedColumnNames(Class<?> resultType, Class<?> type) {
+        List<String> tableColumns = new ArrayList<>();
+        tableColumns.add("ID");
+        for (Field field : ReflectionUtil.getTableFields(type)) {
+            tableColumns.add(NamingHelper.toSQLName(field));
+        }
 
-        //If record already exists then ignore
-        long id = db.insertWithOnConflict(joinTableName, null, values,
-                SQLiteDatabase.CONFLICT_IGNORE);
+        List<String> columns = new ArrayList<>();
+        for (Field field : ReflectionUtil.getTableFields(resultType)) {
+            String column = NamingHelper.toSQLName(field);
+            if (tableColumns.contains(column) && !columns.contains(column)) {
+                columns.add(column);
+            }
+        }
 
-        Log.i("Sugar", "Inserted Join table record for " + joinTableName + ".");
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException(resultType.getSimpleName() + " has no field stored in a column of " + type.getSimpleName());
+        }
 
+        return columns.toArray(new String[columns.size()]);
     }
 
+    public static <T> List<T> getEntitiesFromCursor(Cursor cursor, Class<T> type){
+        return readEntities(cursor, type, SugarSession.current(), null);
+    }
 
-    static long save(SQLiteDatabase db, Object object) {
-
-        Set<SugarRecord> recordsToSave = new HashSet<SugarRecord>();
-        ListMultimap<String, ContentValues> joinTables = ArrayListMultimap.create();
-        ReflectionUtil.getRecordsToSave(object, recordsToSave, joinTables);
-
-        if(recordsToSave != null && !recordsToSave.isEmpty()) {
-            saveInTx(recordsToSave);
-
-            if(joinTables != null) {
-                for(String tableName: joinTables.keySet()) {
-                    saveJoinTableList(getSugarContext().getSugarDb().getDB(), joinTables.get(tableName), tableName);
+    /**
+     * @param partialEntities receives the entities if the cursor reads only some of their
+     *                        columns, null if it reads them all
+     */
+    private static <T> List<T> readEntities(Cursor cursor, Class<T> type, SugarSession session, Set<Object> partialEntities) {
+        T entity;
+        List<T> result = new ArrayList<>();
+        try {
+            CursorColumns cursorColumns = new CursorColumns(cursor, type);
+            Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+            ReferenceLoader referenceLoader = new ReferenceLoader();
+            while (cursor.moveToNext()) {
+                if (partialEntities != null) {
+                    entity = cursorColumns.newInstance(type);
+                    //Kept out of the entities map, so an unsaved copy never stands in for the row
+                    readColumns(cursor, entity, cursorColumns, referenceLoader);
+                    ChangeTracker.snapshot(entity);
+                    partialEntities.add(entity);
+                } else {
+                    entity = readEntity(cursor, type, cursorColumns, entitiesMap, referenceLoader, session);
                 }
+                result.add(entity);
             }
+            referenceLoader.load();
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            cursor.close();
         }
 
-        Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
+        return result;
+    }
 
-        List<Field> columns = ReflectionUtil.getTableFields(object.getClass());
-        ContentValues values = new ContentValues(columns.size());
-        Field idField = null;
-        boolean isIdAnnotationPresent = false;
-        for (Field column : columns) {
-            List<SugarRecord> children = new ArrayList<SugarRecord>();
-            if(column.isAnnotationPresent(Id.class)) {
+    public static <T> long count(Class<T> type) {
+        return count(type, null, null, null, null, null);
+    }
 
-                if(isIdAnnotationPresent) {
-                    throw new IllegalStateException("Multiple Id annotations present on " + object.getClass().getSimpleName() + ". Only one field can have this annotation.");
-                }
+    public static <T> long count(Class<T> type, String whereClause, String[] whereArgs) {
+    	return count(type, whereClause, whereArgs, null, null, null);
+    }
 
-                idField = column;
-                isIdAnnotationPresent = true;
+    /**
+     * Counts the matching rows, or the groups when grouped by columns. A limit caps the count.
+     */
+    public static <T> long count(Class<T> type, String whereClause, String[] whereArgs, String groupBy, String orderBy, String limit) {
+        long result = -1;
+        String filter = (!TextUtils.isEmpty(whereClause)) ? " where "  + whereClause : "";
+        String sql = "SELECT count(*) FROM " + NamingHelper.toSQLName(type) + filter;
+        if (!TextUtils.isEmpty(groupBy) || !TextUtils.isEmpty(orderBy) || !TextUtils.isEmpty(limit)) {
+            StringBuilder rows = new StringBuilder("SELECT 1 FROM ").append(NamingHelper.toSQLName(type)).append(filter);
+            appendClause(rows, " GROUP BY ", groupBy);
+            appendClause(rows, " ORDER BY ", orderBy);
+            appendClause(rows, " LIMIT ", limit);
+            sql = "SELECT count(*) FROM (" + rows + ")";
+        }
+        String[] args = (whereArgs == null) ? null : replaceArgs(whereArgs);
+
+        QueryCache queryCache = getQueryCache();
+        String key = null;
+        long generation = 0;
+        if (queryCache != null) {
+            key = QueryCache.key("count", sql, args);
+            Long cached = (Long) queryCache.get(key);
+            if (cached != null) {
+                return cached;
             }
+            generation = queryCache.getGeneration();
+        }
 
-            //Check for null to make sure we don't squash a declared annotated ID field
-            else if (column.getName().equals("id") && idField == null) {
-                idField = column;
-            }
+        SQLiteStatement sqliteStatement;
+        try {
+            sqliteStatement = getSugarContext().getSugarDb().getStatementCache().getStatement(sql);
+        } catch (SQLiteException e) {
+            e.printStackTrace();
+            return result;
+        }
 
-            if(!column.getName().equals("id")) {
-                ReflectionUtil.addFieldValueToColumn(values, column, object, entitiesMap);
+        synchronized (sqliteStatement) {
+            sqliteStatement.clearBindings();
+            if (args != null) {
+                for (int i = args.length; i != 0; i--) {
+                    sqliteStatement.bindString(i, args[i - 1]);
+                }
             }
 
+            result = sqliteStatement.simpleQueryForLong();
         }
 
-        ReflectionUtil.addFieldValueToColumn(values, idField, object, entitiesMap);
+        if (queryCache != null) {
+            queryCache.put(key, result, Collections.singleton(QueryCache.tableOf(type)), generation);
+        }
+        return result;
+    }
 
-        boolean isSugarEntity = isSugarEntity(object.getClass());
-        if (isSugarEntity && entitiesMap.containsKey(object) && !isIdAnnotationPresent) {
-                values.put("id", entitiesMap.get(object));
-        } else if(isSugarEntity && isIdAnnotationPresent && idField != null) {
-            idField.setAccessible(true);
-            try {
-                Object id = idField.get(object);
-                if(id != null && (Long.class.equals(id.getClass()) || long.class.equals(id.getClass()))) {
-                    values.put("id", (Long) id);
+    /**
+     * Computes an aggregate of one property over the matching rows in SQLite, on a statement
+     * compiled once per SQL text. Only numeric properties are aggregated, so the value read
+     * back as text always parses.
+     *
+     * @param property the name of the aggregated field, or null to count rows
+     * @return the aggregate, or NaN for the average, minimum or maximum of no rows
+     */
+    public static double aggregate(Class<?> type, Aggregate aggregate, String property, String whereClause, String[] whereArgs) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(aggregate.toSql(aggregatedColumn(type, aggregate, property)))
+                .append(" FROM ").append(NamingHelper.toSQLName(type));
+        appendClause(sql, " WHERE ", whereClause);
+
+        SQLiteStatement statement = getSugarContext().getSugarDb().getStatementCache().getStatement(sql.toString());
+        String value;
+        synchronized (statement) {
+            statement.clearBindings();
+            if (whereArgs != null) {
+                String[] args = replaceArgs(whereArgs);
+                for (int i = 0; i < args.length; i++) {
+                    statement.bindString(i + 1, args[i]);
                 }
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
             }
 
+            value = statement.simpleQueryForString();
         }
 
-        long id = db.insertWithOnConflict(NamingHelper.toSQLName(object.getClass()), null, values,
-                SQLiteDatabase.CONFLICT_REPLACE);
+        return (value != null) ? Double.parseDouble(value) : Double.NaN;
+    }
 
-        if (object.getClass().isAnnotationPresent(Table.class)) {
-            if (idField != null) {
-                idField.setAccessible(true);
-                try {
-                    idField.set(object, id);
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
+    /**
+     * Only numeric properties, including booleans and dates stored as numbers, can be summed,
+     * averaged or compared. SQLite would sum text as 0 and compare it as text.
+     */
+    private static String aggregatedColumn(Class<?> type, Aggregate aggregate, String property) {
+        if (property == null) {
+            if (aggregate != Aggregate.COUNT) {
+                throw new IllegalArgumentException(aggregate + " of " + type.getSimpleName() + " requires a property");
+            }
+            return null;
+        }
+
+        Field field = getTableField(type, property);
+        Class<?> fieldType = field.getType();
+        boolean isNumeric = (fieldType.isPrimitive() && fieldType != char.class) || Number.class.isAssignableFrom(fieldType)
+                || fieldType == Boolean.class || Date.class.isAssignableFrom(fieldType) || Calendar.class.isAssignableFrom(fieldType);
+        if (aggregate != Aggregate.COUNT && !isNumeric) {
+            throw new IllegalArgumentException("Can't compute " + aggregate + " of " + type.getSimpleName() + "."
+                    + property + ", it is not numeric");
+        }
+        return NamingHelper.toSQLName(field);
+    }
+
+    /**
+     * Computes an aggregate of one property for each group of the matching rows in SQLite. Only
+     * the grouped columns and the aggregate are read back.
+     *
+     * @param property the name of the aggregated field, or null to count rows
+     * @param groupBy the grouped columns, which are the keys of the result
+     * @param havingArgs the arguments of the having clause, bound after the where arguments
+     */
+    public static AggregateResult aggregateGroups(Class<?> type, Aggregate aggregate, String property, String whereClause, String[] whereArgs,
+                                                  String groupBy, String having, String[] havingArgs, String orderBy, String limit) {
+        if (TextUtils.isEmpty(groupBy)) {
+            throw new IllegalArgumentException("Aggregating groups of " + type.getSimpleName() + " requires a group by clause");
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(groupBy).append(", ")
+                .append(aggregate.toSql(aggregatedColumn(type, aggregate, property)))
+                .append(" FROM ").append(NamingHelper.toSQLName(type));
+        appendClause(sql, " WHERE ", whereClause);
+        appendClause(sql, " GROUP BY ", groupBy);
+        appendClause(sql, " HAVING ", having);
+        appendClause(sql, " ORDER BY ", orderBy);
+        appendClause(sql, " LIMIT ", limit);
+
+        List<String> args = new ArrayList<>();
+        if (whereArgs != null) {
+            args.addAll(Arrays.asList(replaceArgs(whereArgs)));
+        }
+        if (havingArgs != null) {
+            args.addAll(Arrays.asList(replaceArgs(havingArgs)));
+        }
+
+        Cursor cursor = getSugarDataBase().rawQuery(sql.toString(), args.toArray(new String[args.size()]));
+        try {
+            int valueIndex = cursor.getColumnCount() - 1;
+            String[] keys = new String[cursor.getCount() * valueIndex];
+            double[] values = new double[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                for (int k = 0; k < valueIndex; k++) {
+                    keys[i * valueIndex + k] = cursor.getString(k);
                 }
-            } else {
-                entitiesMap.put(object, id);
+                values[i] = cursor.isNull(valueIndex) ? Double.NaN : cursor.getDouble(valueIndex);
             }
-        } else if (SugarRecord.class.isAssignableFrom(object.getClass())) {
-            ((SugarRecord) object).setId(id);
+            return new AggregateResult(valueIndex, keys, values);
+        } finally {
+            cursor.close();
         }
+    }
+
+    public static long save(Object object) {
+        return save(getSugarDataBase(), object);
+    }
+
+    static long save(SQLiteDatabase db, Object object) {
+        SavePlan savePlan = new SavePlan();
+        savePlan.add(object);
+        savePlan.execute(db);
+
+        Long savedId = EntityWriter.getIdValue(object, EntityWriter.getIdField(object.getClass()), getSugarContext().getEntitiesMap());
+        long id = (savedId != null) ? savedId : -1;
 
         if (ManifestHelper.isDebugEnabled()) {
             Log.i(SUGAR, object.getClass().getSimpleName() + " saved : " + id);
@@ -465,7 +861,30 @@ public class SugarRecord {
         return update(getSugarDataBase(), object);
     }
 
+    /**
+     * Updates the row matching the {@link Unique} columns of the object, or saves the object if
+     * there is none. Objects of a {@link com.orm.dsl.TrackChanges} class that were loaded or saved
+     * before only have their changed columns written, 0 is returned when nothing changed.
+     */
     static long update(SQLiteDatabase db, Object object) {
+        try {
+            return updateRow(db, object);
+        } finally {
+            getSugarContext().invalidateCaches(object.getClass());
+        }
+    }
+
+    private static long updateRow(SQLiteDatabase db, Object object) {
+        int changedRows = ChangeTracker.saveChanges(object);
+        if (changedRows != ChangeTracker.NOT_TRACKED) {
+            if (changedRows > 0) {
+                ChangeTracker.snapshot(object);
+            }
+            return changedRows;
+        }
+
+        checkComplete(object);
+
         Map<Object, Long> entitiesMap = getSugarContext().getEntitiesMap();
         List<Field> columns = ReflectionUtil.getTableFields(object.getClass());
         ContentValues values = new ContentValues(columns.size());
@@ -505,28 +924,103 @@ public class SugarRecord {
 
 
 
+    /**
+     * Rejects an entity read by {@link #findColumns}, whose unread fields would be written over
+     * the stored columns.
+     */
+    static void checkComplete(Object object) {
+        if (getSugarContext().getPartialEntities().contains(object)) {
+            throw new IllegalStateException("Only some columns of this " + object.getClass().getSimpleName()
+                    + " were read, writing it would overwrite the others with defaults");
+        }
+    }
+
     public static boolean isSugarEntity(Class<?> objectClass) {
         return objectClass.isAnnotationPresent(Table.class) || SugarRecord.class.isAssignableFrom(objectClass);
     }
 
-    private static void inflate(Cursor cursor, Object object, Map<Object, Long> entitiesMap) {
-        List<Field> columns = ReflectionUtil.getTableFields(object.getClass());
+    /**
+     * Reads the entity of the current row, or returns the instance the session holds for it
+     * without reading the row.
+     */
+    private static <T> T readEntity(Cursor cursor, Class<T> type, CursorColumns cursorColumns, Map<Object, Long> entitiesMap,
+                                    ReferenceLoader referenceLoader, SugarSession session)
+            throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        long id = (session != null && cursorColumns.idIndex >= 0) ? cursor.getLong(cursorColumns.idIndex) : 0;
+        if (id > 0) {
+            T entity = session.get(type, id);
+            if (entity != null) {
+                return entity;
+            }
+        }
+
+        T entity = cursorColumns.newInstance(type);
+        inflate(cursor, entity, entitiesMap, cursorColumns, referenceLoader);
+        if (id > 0) {
+            session.put(type, id, entity);
+        }
+
+        return entity;
+    }
+
+    private static void evict(Class<?> type, long id) {
+        SugarSession session = SugarSession.current();
+        if (session != null) {
+            session.evict(type, id);
+        }
+        getSugarContext().invalidateCaches(type);
+    }
+
+    private static void evict(Map<Class<?>, List<Long>> idsByType) {
+        SugarSession session = SugarSession.current();
+        for (Map.Entry<Class<?>, List<Long>> entry : idsByType.entrySet()) {
+            if (session != null) {
+                for (Long id : entry.getValue()) {
+                    session.evict(entry.getKey(), id);
+                }
+            }
+            getSugarContext().invalidateCaches(entry.getKey());
+        }
+    }
+
+    /**
+     * Sets the fields of the object from the current row. Referenced entities are left to the
+     * reference loader, which loads them for all rows at once.
+     */
+    private static void inflate(Cursor cursor, Object object, Map<Object, Long> entitiesMap, CursorColumns cursorColumns,
+                                ReferenceLoader referenceLoader) {
         if (!entitiesMap.containsKey(object)) {
-            entitiesMap.put(object, cursor.getLong(cursor.getColumnIndex(("ID"))));
+            entitiesMap.put(object, cursor.getLong(cursorColumns.idIndex));
         }
 
-        for (Field field : columns) {
-        	field.setAccessible(true);
-            Class<?> fieldType = field.getType();
-            if (isSugarEntity(fieldType)) {
-                try {
-                    long id = cursor.getLong(cursor.getColumnIndex(NamingHelper.toSQLName(field)));
-                    field.set(object, (id > 0) ? findById(fieldType, id) : null);
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
+        readColumns(cursor, object, cursorColumns, referenceLoader);
+        ChangeTracker.snapshot(object);
+    }
+
+    /**
+     * Sets the fields read by the cursor. Fields without a column in the cursor keep their
+     * values.
+     */
+    private static void readColumns(Cursor cursor, Object object, CursorColumns cursorColumns, ReferenceLoader referenceLoader) {
+        for (int i = 0; i < cursorColumns.indexes.length; i++) {
+            if (cursorColumns.indexes[i] < 0) {
+                continue;
+            }
+
+            ColumnBinder binder = cursorColumns.binders[i];
+            if (binder.isReference()) {
+                long id = cursor.getLong(cursorColumns.indexes[i]);
+                if (id > 0) {
+                    referenceLoader.add(object, binder, id);
+                } else {
+                    try {
+                        binder.set(object, null);
+                    } catch (IllegalAccessException e) {
+                        e.printStackTrace();
+                    }
                 }
             } else {
-                ReflectionUtil.setFieldValueFromCursor(cursor, field, object);
+                binder.setFromCursor(cursor, cursorColumns.indexes[i], object);
             }
         }
     }
@@ -536,44 +1030,65 @@ public class SugarRecord {
         Class<?> type = getClass();
         if (id != null && id > 0L) {
             Log.i(SUGAR, type.getSimpleName() + " deleted : " + id);
-            return getSugarDataBase().delete(NamingHelper.toSQLName(type), "Id=?", new String[]{id.toString()}) == 1;
+            boolean deleted = getSugarDataBase().delete(NamingHelper.toSQLName(type), "Id=?", new String[]{id.toString()}) == 1;
+            evict(type, id);
+            return deleted;
         } else {
             Log.i(SUGAR, "Cannot delete object: " + type.getSimpleName() + " - object has not been saved");
             return false;
         }
     }
     
-    public static boolean delete(Object object) {
+    /**
+     * Reads the id of an object to delete, and logs why if it can't be deleted.
+     *
+     * @return the id, or null if the object can't be deleted
+     */
+    private static Long getDeleteId(Object object) {
         Class<?> type = object.getClass();
+        Long id = null;
         if (type.isAnnotationPresent(Table.class)) {
             try {
-
-                Table table = type.getAnnotation(Table.class);
-
-                Field field = type.getDeclaredField(table.primaryKeyField());
+                Field field = type.getDeclaredField(type.getAnnotation(Table.class).primaryKeyField());
                 field.setAccessible(true);
-                Long id = (Long) field.get(object);
-                if (id != null && id > 0L) {
-                    boolean deleted = getSugarDataBase().delete(NamingHelper.toSQLName(type), "Id=?", new String[]{id.toString()}) == 1;
-                    Log.i(SUGAR, type.getSimpleName() + " deleted : " + id);
-                    return deleted;
-                } else {
-                    Log.i(SUGAR, "Cannot delete object: " + object.getClass().getSimpleName() + " - object has not been saved");
-                    return false;
-                }
+                id = (Long) field.get(object);
             } catch (NoSuchFieldException e) {
-                Log.i(SUGAR, "Cannot delete object: " + object.getClass().getSimpleName() + " - annotated object has no id");
-                return false;
+                Log.i(SUGAR, "Cannot delete object: " + type.getSimpleName() + " - annotated object has no id");
+                return null;
             } catch (IllegalAccessException e) {
-                Log.i(SUGAR, "Cannot delete object: " + object.getClass().getSimpleName() + " - can't access id");
-                return false;
+                Log.i(SUGAR, "Cannot delete object: " + type.getSimpleName() + " - can't access id");
+                return null;
             }
         } else if (SugarRecord.class.isAssignableFrom(type)) {
-            return ((SugarRecord) object).delete();
+            id = ((SugarRecord) object).getId();
         } else {
-            Log.i(SUGAR, "Cannot delete object: " + object.getClass().getSimpleName() + " - not persisted");
+            Log.i(SUGAR, "Cannot delete object: " + type.getSimpleName() + " - not persisted");
+            return null;
+        }
+
+        if (id == null || id <= 0L) {
+            Log.i(SUGAR, "Cannot delete object: " + type.getSimpleName() + " - object has not been saved");
+            return null;
+        }
+        return id;
+    }
+
+    public static boolean delete(Object object) {
+        Class<?> type = object.getClass();
+        //Records delete themselves, subclasses may override delete()
+        if (!type.isAnnotationPresent(Table.class) && SugarRecord.class.isAssignableFrom(type)) {
+            return ((SugarRecord) object).delete();
+        }
+
+        Long id = getDeleteId(object);
+        if (id == null) {
             return false;
         }
+
+        boolean deleted = getSugarDataBase().delete(NamingHelper.toSQLName(type), "Id=?", new String[]{id.toString()}) == 1;
+        evict(type, id);
+        Log.i(SUGAR, type.getSimpleName() + " deleted : " + id);
+        return deleted;
     }
 
     public long save() {
@@ -586,7 +1101,13 @@ public class SugarRecord {
 
     @SuppressWarnings("unchecked")
     void inflate(Cursor cursor) {
-        inflate(cursor, this, getSugarContext().getEntitiesMap());
+        ReferenceLoader referenceLoader = new ReferenceLoader();
+        inflate(cursor, this, getSugarContext().getEntitiesMap(), new CursorColumns(cursor, getClass()), referenceLoader);
+        try {
+            referenceLoader.load();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
     }
 
     public Long getId() {
@@ -600,6 +1121,7 @@ public class SugarRecord {
     public static class CursorIterator<E> implements Iterator<E> {
         Class<E> type;
         Cursor cursor;
+        private CursorColumns cursorColumns;
 
         public CursorIterator(Class<E> type, Cursor cursor) {
             this.type = type;
@@ -623,8 +1145,14 @@ public class SugarRecord {
             }
 
             try {
-                entity = type.getDeclaredConstructor().newInstance();
-                inflate(cursor, entity, getSugarContext().getEntitiesMap());
+                if (cursorColumns == null) {
+                    cursorColumns = new CursorColumns(cursor, type);
+                }
+                //Rows are handed out one at a time, so references are loaded per row
+                ReferenceLoader referenceLoader = new ReferenceLoader();
+                entity = readEntity(cursor, type, cursorColumns, getSugarContext().getEntitiesMap(), referenceLoader,
+                        SugarSession.current());
+                referenceLoader.load();
             } catch (Exception e) {
                 e.printStackTrace();
             } finally {
@@ -0,0 +1,128 @@
+package com.orm;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * A unit of work holding one instance per loaded row. While a session is open on a thread,
+ * {@link SugarRecord#findById(Class, Long)}, queries and reference loads on that thread return
+ * the instance already loaded or saved in the session for a class and id, and rows already in
+ * the session are not read again:
+ *
+ * <pre>
+ * SugarSession session = SugarSession.open();
+ * try {
+ *     Author author = SugarRecord.findById(Author.class, 1L);
+ *     ... SugarRecord.findById(Author.class, 1L) returns the same author, without a query
+ * } finally {
+ *     session.close();
+ * }
+ * </pre>
+ *
+ * Rows changed by bulk statements or raw SQL are not refreshed. Bulk statements run through
+ * Sugar clear the session; after raw SQL, call {@link #clear()}.
+ */
+public final class SugarSession implements Closeable {
+    private static final ThreadLocal<SugarSession> currentSession = new ThreadLocal<>();
+
+    private final SugarSession previous;
+    private final Map<Class<?>, Map<Long, Object>> identityMap = new HashMap<>();
+    private boolean isClosed;
+
+    private SugarSession(SugarSession previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Opens a session on the current thread. A session opened while another is open replaces
+     * it until closed.
+     */
+    public static SugarSession open() {
+        SugarSession session = new SugarSession(currentSession.get());
+        currentSession.set(session);
+        return session;
+    }
+
+    /**
+     * @return the session open on the current thread, or null if there is none
+     */
+    public static SugarSession current() {
+        return currentSession.get();
+    }
+
+    /**
+     * @return the instance of the row in the session, or null if it hasn't been loaded
+     */
+    public <T> T get(Class<T> type, long id) {
+        Map<Long, Object> entities = identityMap.get(type);
+        return (entities != null) ? type.cast(entities.get(id)) : null;
+    }
+
+    public boolean contains(Class<?> type, long id) {
+        Map<Long, Object> entities = identityMap.get(type);
+        return entities != null && entities.containsKey(id);
+    }
+
+    /**
+     * Adds a saved entity to the session, replacing the instance held for its row.
+     */
+    public void put(Object entity) {
+        Long id = EntityWriter.getIdValue(entity, EntityWriter.getIdField(entity.getClass()), getSugarContext().getEntitiesMap());
+        if (id != null && id > 0) {
+            put(entity.getClass(), id, entity);
+        }
+    }
+
+    void put(Class<?> type, long id, Object entity) {
+        Map<Long, Object> entities = identityMap.get(type);
+        if (entities == null) {
+            entities = new HashMap<>();
+            identityMap.put(type, entities);
+        }
+
+        entities.put(id, entity);
+    }
+
+    public void evict(Class<?> type, long id) {
+        Map<Long, Object> entities = identityMap.get(type);
+        if (entities != null) {
+            entities.remove(id);
+        }
+    }
+
+    public void evictAll(Class<?> type) {
+        identityMap.remove(type);
+    }
+
+    public void clear() {
+        identityMap.clear();
+    }
+
+    /**
+     * Clears the session and restores the session it replaced, if any.
+     */
+    @Override
+    public void close() {
+        if (isClosed) {
+            return;
+        }
+
+        isClosed = true;
+        identityMap.clear();
+        if (currentSession.get() == this) {
+            SugarSession restored = previous;
+            while (restored != null && restored.isClosed) {
+                restored = restored.previous;
+            }
+
+            if (restored != null) {
+                currentSession.set(restored);
+            } else {
+                currentSession.remove();
+            }
+        }
+    }
+}
@@ -1,30 +1,138 @@
 package com.orm;
 
 import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
 import android.util.Log;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs callbacks in a transaction. A callback run while its thread is already in a transaction
+ * runs in a savepoint instead, so its failure only rolls back its own changes.
+ */
 public class SugarTransactionHelper {
     private static final String LOG_TAG = SugarTransactionHelper.class.getSimpleName();
+    private static final String SAVEPOINT = "SUGAR_SAVEPOINT_";
+
+    /**
+     * Android runs statements starting with ROLLBACK as the end of its own transaction, which
+     * would end the outer transaction instead of rolling back to the savepoint. The comment keeps
+     * it from recognizing the statement, SQLite ignores it.
+     */
+    private static final String ROLLBACK_TO = "/* savepoint */ ROLLBACK TO ";
+
+    private static final AtomicInteger savepoints = new AtomicInteger();
 
     public static void doInTransaction(Callback callback) {
-        SQLiteDatabase database = SugarContext.getSugarContext().getSugarDb().getDB();
-        database.beginTransaction();
+        doInTransaction(TransactionMode.EXCLUSIVE, callback);
+    }
+
+    public static void doInTransaction(TransactionMode mode, final Callback callback) {
+        try {
+            doInTransaction(mode, new ResultCallback<Void>() {
+                @Override
+                public Void manipulateInTransaction() {
+                    callback.manipulateInTransaction();
+                    return null;
+                }
+            });
+        } catch (Throwable e) {
+            Log.d(LOG_TAG, "Could execute callback within transaction", e);
+        }
+    }
+
+    /**
+     * Runs the callback in a transaction, or a savepoint if one is open, and returns its result.
+     * Unlike {@link #doInTransaction(TransactionMode, Callback)} a failure of the callback is
+     * thrown after its changes are rolled back. A transaction that found the database locked is
+     * run again as the {@link RetryPolicy} of the context allows.
+     */
+    public static <T> T doInTransaction(final TransactionMode mode, final ResultCallback<T> callback) {
+        final SQLiteDatabase database = SugarContext.getSugarContext().getSugarDb().getDB();
+        if (database.inTransaction()) {
+            return doInSavepoint(database, callback);
+        }
+
+        return SugarContext.getSugarContext().getRetryPolicy().execute(new ResultCallback<T>() {
+            @Override
+            public T manipulateInTransaction() {
+                return runInTransaction(database, mode, callback);
+            }
+        });
+    }
+
+    /**
+     * Runs the callback in a transaction, or a savepoint if one is open, without retrying it.
+     * Sugar's own writers use it, so their failure inside a caller's transaction doesn't roll
+     * back the caller's changes.
+     */
+    static <T> T runInTransaction(SQLiteDatabase database, TransactionMode mode, ResultCallback<T> callback) {
+        if (database.inTransaction()) {
+            return doInSavepoint(database, callback);
+        }
 
+        beginTransaction(database, mode);
         try {
             Log.d(LOG_TAG, "Callback executing within transaction");
 
-            callback.manipulateInTransaction();
+            T result = callback.manipulateInTransaction();
             database.setTransactionSuccessful();
 
             Log.d(LOG_TAG, "Callback successfully executed within transaction");
-        } catch (Throwable e) {
-            Log.d(LOG_TAG, "Could execute callback within transaction", e);
+            return result;
+        } finally {
+            endTransaction(database);
+        }
+    }
+
+    /**
+     * Nested {@link SQLiteDatabase#beginTransaction()} calls can't be used here: a failed nested
+     * transaction makes Android roll back the outermost one, losing the outer changes too.
+     */
+    private static <T> T doInSavepoint(SQLiteDatabase database, ResultCallback<T> callback) {
+        String savepoint = SAVEPOINT + savepoints.incrementAndGet();
+        database.execSQL("SAVEPOINT " + savepoint);
+
+        boolean isSuccessful = false;
+        try {
+            Log.d(LOG_TAG, "Callback executing within savepoint " + savepoint);
+
+            T result = callback.manipulateInTransaction();
+            isSuccessful = true;
+            return result;
         } finally {
-            database.endTransaction();
+            if (!isSuccessful) {
+                database.execSQL(ROLLBACK_TO + savepoint);
+            }
+            database.execSQL("RELEASE " + savepoint);
+        }
+    }
+
+    /**
+     * Begins a transaction in the given mode, like {@link SQLiteDatabase#beginTransaction()}.
+     */
+    static void beginTransaction(SQLiteDatabase database, TransactionMode mode) {
+        if (mode == TransactionMode.IMMEDIATE && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+            database.beginTransactionNonExclusive();
+        } else {
+            database.beginTransaction();
         }
     }
 
+    /**
+     * Ends a transaction like {@link SQLiteDatabase#endTransaction()}. Once the outermost
+     * transaction has ended, the caches written in it are invalidated again.
+     */
+    static void endTransaction(SQLiteDatabase database) {
+        database.endTransaction();
+        SugarContext.getSugarContext().flushInvalidations();
+    }
+
     public interface Callback {
         void manipulateInTransaction();
     }
+
+    public interface ResultCallback<T> {
+        T manipulateInTransaction();
+    }
 }
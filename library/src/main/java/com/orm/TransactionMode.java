@@ -0,0 +1,18 @@
+package com.orm;
+
+/**
+ * How a transaction locks the database when it begins.
+ */
+public enum TransactionMode {
+    /**
+     * Locks out every other connection, readers included, until the transaction ends. Readers
+     * of a database in write-ahead logging mode are not locked out.
+     */
+    EXCLUSIVE,
+
+    /**
+     * Locks out other writers, other connections can read until the transaction commits. Needs
+     * API level 11, below it is {@link #EXCLUSIVE}.
+     */
+    IMMEDIATE
+}
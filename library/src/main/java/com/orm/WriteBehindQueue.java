@@ -0,0 +1,231 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.orm.util.ManifestHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.orm.SugarContext.getSugarContext;
+
+/**
+ * Saves entities on a single writer thread. Every save waiting in the queue is written in one
+ * transaction, a batch is committed once it holds the maximum number of saves or its first save
+ * has waited for the maximum latency.
+ *
+ * Enable it with {@link SugarContext#enableWriteBehind(int, long)}.
+ */
+public class WriteBehindQueue {
+    private static final String SUGAR = "Sugar";
+
+    private final int maxBatchSize;
+    private final long maxLatencyMillis;
+    private final BlockingQueue<PendingSave> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final PendingSave stop = new PendingSave(null);
+    private final Object lock = new Object();
+    private volatile boolean running = true;
+
+    WriteBehindQueue(int maxBatchSize, long maxLatencyMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size must be greater than or equal to 1.");
+        }
+        if (maxLatencyMillis < 0) {
+            throw new IllegalArgumentException("The maximum latency can't be negative.");
+        }
+
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "Sugar write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Enqueues the save of the object and its relationships. The object must not be changed
+     * until the save is done.
+     *
+     * @return the future id of the object, -1 if it could not be saved
+     */
+    public Future<Long> save(Object object) {
+        if (object == null) {
+            throw new IllegalArgumentException("Can't save null.");
+        }
+        if (!ChangeTracker.isTracked(object.getClass())) {
+            SugarRecord.checkComplete(object);
+        }
+
+        PendingSave pendingSave = new PendingSave(object);
+        synchronized (lock) {
+            if (!running) {
+                throw new IllegalStateException("The write-behind queue has been shut down.");
+            }
+            queue.add(pendingSave);
+        }
+        return pendingSave;
+    }
+
+    /**
+     * Writes every save enqueued so far without waiting for the latency, and blocks until they
+     * are committed.
+     */
+    public void flush() {
+        PendingSave barrier = new PendingSave(null);
+        synchronized (lock) {
+            if (!running) {
+                return;
+            }
+            queue.add(barrier);
+        }
+
+        try {
+            barrier.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(SUGAR, "Error flushing the write-behind queue", e.getCause());
+        }
+    }
+
+    /**
+     * Stops accepting saves, then blocks until the writer thread has written the pending saves
+     * and stopped. Saves it could not write fail.
+     */
+    void shutdown() {
+        synchronized (lock) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            //Nothing is enqueued after the stop barrier, so the writer stops once it is written
+            queue.add(stop);
+        }
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        PendingSave pendingSave;
+        while ((pendingSave = queue.poll()) != null) {
+            pendingSave.fail(new IllegalStateException("The write-behind queue has been shut down."));
+        }
+    }
+
+    private void drain() {
+        List<PendingSave> batch = new ArrayList<>(maxBatchSize);
+        boolean isStopped = false;
+
+        while (!isStopped) {
+            try {
+                PendingSave first = queue.take();
+                batch.add(first);
+
+                long deadline = System.currentTimeMillis() + maxLatencyMillis;
+                int saves = (first.object != null) ? 1 : 0;
+                boolean isFlushed = first.object == null;
+                while (!isFlushed && saves < maxBatchSize) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    PendingSave next = (remaining > 0) ? queue.poll(remaining, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+
+                    batch.add(next);
+                    if (next.object == null) {
+                        isFlushed = true;
+                    } else {
+                        saves++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+
+            //A batch ends at the first barrier it takes
+            isStopped = batch.get(batch.size() - 1) == stop;
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingSave> batch) {
+        final SQLiteDatabase db = getSugarContext().getSugarDb().getDB();
+        final SavePlan savePlan = new SavePlan();
+        int saves = 0;
+
+        for (PendingSave pendingSave : batch) {
+            if (pendingSave.object != null && !pendingSave.isCancelled()) {
+                savePlan.add(pendingSave.object);
+                saves++;
+            }
+        }
+
+        try {
+            if (saves > 0) {
+                getSugarContext().getRetryPolicy().execute(new SugarTransactionHelper.ResultCallback<Void>() {
+                    @Override
+                    public Void manipulateInTransaction() {
+                        savePlan.execute(db);
+                        return null;
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            Log.e(SUGAR, "Error writing " + saves + " queued saves", e);
+            for (PendingSave pendingSave : batch) {
+                pendingSave.fail(e);
+            }
+            return;
+        }
+
+        for (PendingSave pendingSave : batch) {
+            pendingSave.run();
+        }
+
+        if (ManifestHelper.isDebugEnabled()) {
+            Log.i(SUGAR, saves + " queued saves committed");
+        }
+    }
+
+    private static class PendingSave extends FutureTask<Long> {
+        final Object object;
+
+        PendingSave(final Object object) {
+            super(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    if (object == null) {
+                        return 0L;
+                    }
+
+                    Long id = EntityWriter.getIdValue(object, EntityWriter.getIdField(object.getClass()), getSugarContext().getEntitiesMap());
+                    return (id != null) ? id : -1L;
+                }
+            });
+            this.object = object;
+        }
+
+        void fail(Throwable throwable) {
+            setException(throwable);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.orm.dsl;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Keeps the most recently used entities of the class in memory, shared by all threads, so
+ * lookups by id, first, last and references to them don't query. Writing the class clears its
+ * cache. Cached entities are shared instances and should not be modified, which suits
+ * reference data that is read often and seldom changes.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Cacheable {
+    /**
+     * The number of entities kept before the least recently used one is dropped.
+     */
+    int maxEntries() default 100;
+}
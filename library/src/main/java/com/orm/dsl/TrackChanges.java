@@ -0,0 +1,15 @@
+package com.orm.dsl;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tracks the column values of loaded entities. Saving or updating such an entity only writes
+ * the columns that changed since it was loaded or last saved, and nothing when none did.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TrackChanges {
+}
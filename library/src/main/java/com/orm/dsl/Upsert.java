@@ -0,0 +1,17 @@
+package com.orm.dsl;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Saves entities with a known id by updating their row in place, and only inserts a row when
+ * there is none, instead of replacing the row. Overrides the UPSERT meta data of the
+ * AndroidManifest for the annotated class.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Upsert {
+    boolean value() default true;
+}
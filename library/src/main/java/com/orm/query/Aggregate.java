@@ -0,0 +1,28 @@
+package com.orm.query;
+
+/**
+ * The aggregate functions of {@link Select#aggregate(Aggregate, String)}.
+ */
+public enum Aggregate {
+    COUNT("COUNT"),
+    /**
+     * Sums with TOTAL, which is 0 rather than NULL without rows and doesn't overflow.
+     */
+    SUM("TOTAL"),
+    AVG("AVG"),
+    MIN("MIN"),
+    MAX("MAX");
+
+    private String function;
+
+    Aggregate(String function) {
+        this.function = function;
+    }
+
+    /**
+     * @param column the aggregated column, or null to count rows
+     */
+    public String toSql(String column) {
+        return function + "(" + ((column != null) ? column : "*") + ")";
+    }
+}
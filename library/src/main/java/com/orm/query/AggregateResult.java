@@ -0,0 +1,97 @@
+package com.orm.query;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The value of an aggregate for each group of rows, as parallel arrays of group keys and values
+ * in query order. The key of a group holds the value of each grouped column, the keys of all
+ * groups are kept in one array, {@link #getColumnCount()} values per group.
+ */
+public final class AggregateResult {
+    private final int columnCount;
+    private final String[] keys;
+    private final double[] values;
+
+    /**
+     * @param columnCount the number of grouped columns
+     * @param keys the grouped column values of each group, one group after the other
+     */
+    public AggregateResult(int columnCount, String[] keys, double[] values) {
+        if (columnCount < 1 || keys.length != columnCount * values.length) {
+            throw new IllegalArgumentException("Each group needs " + columnCount + " key values and one value.");
+        }
+
+        this.columnCount = columnCount;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @return the grouped column values of the group, in group by order
+     */
+    public List<String> getKey(int index) {
+        return Arrays.asList(Arrays.copyOfRange(keys, index * columnCount, (index + 1) * columnCount));
+    }
+
+    /**
+     * @return the value of one grouped column of the group
+     */
+    public String getKey(int index, int column) {
+        if (column < 0 || column >= columnCount) {
+            throw new IndexOutOfBoundsException("No grouped column " + column);
+        }
+        return keys[index * columnCount + column];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param key the grouped column values of the group, in group by order
+     * @return the value of the group, or NaN if there is no such group
+     */
+    public double get(String... key) {
+        if (key.length != columnCount) {
+            return Double.NaN;
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if (matches(i, key)) {
+                return values[i];
+            }
+        }
+        return Double.NaN;
+    }
+
+    private boolean matches(int index, String[] key) {
+        int offset = index * columnCount;
+        for (int column = 0; column < columnCount; column++) {
+            String value = keys[offset + column];
+            if ((key[column] == null) ? value != null : !key[column].equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the grouped column values of all groups, one group after the other
+     */
+    public String[] getKeys() {
+        return Arrays.copyOf(keys, keys.length);
+    }
+
+    public double[] getValues() {
+        return Arrays.copyOf(values, values.length);
+    }
+}
@@ -2,7 +2,13 @@ package com.orm.query;
 
 import com.orm.SugarRecord;
 
+import java.util.List;
+
 public class Condition {
+    private static final String SPACE = " ";
+    private static final String SINGLE_QUOTE = "'";
+    private static final String LEFT_PARENTHESIS = "(";
+    private static final String RIGHT_PARENTHESIS = ")";
 
     private String property;
     private Object value;
@@ -113,6 +119,52 @@ public class Condition {
         return check.getSymbol();
     }
 
+    /**
+     * Appends the conditions, joined by the given type, to a where clause. The values of the
+     * conditions taking an argument are added to args.
+     *
+     * @return the extended where clause
+     */
+    static String merge(String whereClause, Condition[] conditions, Type type, boolean caseInsensitive, List<String> args) {
+        StringBuilder toAppend = new StringBuilder();
+        for (Condition condition : conditions) {
+            if (toAppend.length() != 0) {
+                toAppend.append(SPACE).append(type.name()).append(SPACE);
+            }
+
+            if (Check.LIKE.equals(condition.getCheck()) ||
+                    Check.NOT_LIKE.equals(condition.getCheck())) {
+                toAppend
+                    .append(caseInsensitive ? "LOWER(" : "")
+                    .append(condition.getProperty())
+                    .append(caseInsensitive ? ")" : "")
+                    .append(condition.getCheckSymbol())
+                    .append(SINGLE_QUOTE)
+                    .append(condition.getValue().toString())
+                    .append(SINGLE_QUOTE);
+            } else if (Check.IS_NULL.equals(condition.getCheck()) ||
+                    Check.IS_NOT_NULL.equals(condition.getCheck())) {
+                toAppend
+                    .append(condition.getProperty())
+                    .append(condition.getCheckSymbol());
+            } else {
+                toAppend
+                    .append(caseInsensitive ? "LOWER(" : "")
+                    .append(condition.getProperty())
+                    .append(caseInsensitive ? ")" : "")
+                    .append(condition.getCheckSymbol())
+                    .append("? ");
+                args.add(condition.getValue().toString());
+            }
+        }
+
+        if (!whereClause.isEmpty()) {
+            whereClause += SPACE + type.name() + SPACE;
+        }
+
+        return whereClause + LEFT_PARENTHESIS + toAppend + RIGHT_PARENTHESIS;
+    }
+
     private void setValue(Object value) {
         if (value instanceof SugarRecord) {
             this.value = ((SugarRecord)value).getId();
@@ -3,32 +3,39 @@ package com.orm.query;
 import android.database.Cursor;
 
 import com.orm.SugarRecord;
+import com.orm.util.BindingPlan;
+import com.orm.util.ColumnBinder;
 import com.orm.util.NamingHelper;
+import com.orm.util.ReflectionUtil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
 public class Select<T> implements Iterable {
     private static final String SPACE = " ";
-    private static final String SINGLE_QUOTE = "'";
-    private static final String LEFT_PARENTHESIS = "(";
-    private static final String RIGHT_PARENTHESIS = ")";
     private static final String SELECT_FROM = "SELECT * FROM ";
     private static final String WHERE = "WHERE ";
     private static final String ORDER_BY = "ORDER BY ";
     private static final String GROUP_BY = "GROUP BY ";
     private static final String LIMIT = "LIMIT ";
     private static final String OFFSET = "OFFSET ";
+    private static final String ID = "ID";
+    private static final String LEFT_PARENTHESIS = "(";
+    private static final String RIGHT_PARENTHESIS = ")";
 
     private Class<T> record;
     private String[] arguments;
     private String whereClause = "";
     private String orderBy = "";
     private String groupBy = "";
+    private String having = "";
+    private String[] havingArgs;
     private String limit = "";
     private String offset = "";
     private List<String> args = new ArrayList<>();
+    private String[] properties;
     private boolean caseInsensitive;
 
     public Select(Class<T> record) {
@@ -58,6 +65,15 @@ public class Select<T> implements Iterable {
         return this;
     }
 
+    /**
+     * Filters the groups of {@link #aggregate(Aggregate, String)}.
+     */
+    public Select<T> having(String having, String... args) {
+        this.having = having;
+        this.havingArgs = args;
+        return this;
+    }
+
     public Select<T> limit(String limit) {
         this.limit = limit;
         return this;
@@ -68,6 +84,17 @@ public class Select<T> implements Iterable {
         return this;
     }
 
+    /**
+     * Reads only the given fields, along with the id, into partially populated entities, which
+     * can only be saved if their class tracks changes.
+     *
+     * @see SugarRecord#findColumns
+     */
+    public Select<T> columns(String... properties) {
+        this.properties = properties;
+        return this;
+    }
+
     public Select<T> where(String whereClause) {
         this.whereClause = whereClause;
         return this;
@@ -81,43 +108,7 @@ public class Select<T> implements Iterable {
     }
 
     private void mergeConditions(Condition[] conditions, Condition.Type type) {
-        StringBuilder toAppend = new StringBuilder();
-        for (Condition condition : conditions) {
-            if (toAppend.length() != 0) {
-                toAppend.append(SPACE).append(type.name()).append(SPACE);
-            }
-
-            if (Condition.Check.LIKE.equals(condition.getCheck()) ||
-                    Condition.Check.NOT_LIKE.equals(condition.getCheck())) {
-                toAppend
-                    .append(caseInsensitive ? "LOWER(" : "")
-                    .append(condition.getProperty())
-                    .append(caseInsensitive ? ")" : "")
-                    .append(condition.getCheckSymbol())
-                    .append(SINGLE_QUOTE)
-                    .append(condition.getValue().toString())
-                    .append(SINGLE_QUOTE);
-            } else if (Condition.Check.IS_NULL.equals(condition.getCheck()) ||
-                    Condition.Check.IS_NOT_NULL.equals(condition.getCheck())) {
-                toAppend
-                    .append(condition.getProperty())
-                    .append(condition.getCheckSymbol());
-            } else {
-                toAppend
-                    .append(caseInsensitive ? "LOWER(" : "")
-                    .append(condition.getProperty())
-                    .append(caseInsensitive ? ")" : "")
-                    .append(condition.getCheckSymbol())
-                    .append("? ");
-                args.add(condition.getValue().toString());
-            }
-        }
-        
-        if (!whereClause.isEmpty()) {
-            whereClause += SPACE + type.name() + SPACE;
-        }
-
-        whereClause += LEFT_PARENTHESIS + toAppend + RIGHT_PARENTHESIS;
+        whereClause = Condition.merge(whereClause, conditions, type, caseInsensitive, args);
     }
 
     public Select<T> whereOr(Condition... args) {
@@ -141,6 +132,157 @@ public class Select<T> implements Iterable {
         return this;
     }
 
+    /**
+     * Continues the order after the given entity, so that the next page is read from where the
+     * previous one ended instead of skipping rows with an offset. The order is by the columns
+     * of {@link #orderBy(String)}, each optionally followed by ASC or DESC, then by id, which is
+     * added to the order if it isn't in it. The ordered columns must not be null.
+     *
+     * Call it once the where conditions and the order are set.
+     */
+    public Select<T> after(Object last) {
+        List<String> columns = getKeysetColumns();
+        BindingPlan bindingPlan = BindingPlan.get(record);
+        Object[] values = new Object[columns.size()];
+        Object id;
+
+        try {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = findBinder(bindingPlan, columns.get(i)).get(last);
+            }
+            id = bindingPlan.getIdBinder().get(last);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot read the order of " + last, e);
+        }
+
+        if (id == null) {
+            throw new IllegalArgumentException(record.getSimpleName() + " has not been saved");
+        }
+        return afterKey(((Number) id).longValue(), values);
+    }
+
+    /**
+     * Continues the order after the row with the given id and ordered column values, as kept
+     * from the last row of the previous page.
+     *
+     * @param values the values of the columns of {@link #orderBy(String)}, without the id
+     * @see #after(Object)
+     */
+    public Select<T> afterKey(long id, Object... values) {
+        List<String> columns = getKeysetColumns();
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected a value for each of " + columns + ", got " + values.length);
+        }
+
+        List<String> keyArgs = new ArrayList<>();
+        for (Object value : values) {
+            Object columnValue = ReflectionUtil.toColumnValue(value);
+            if (columnValue == null || columnValue instanceof byte[]) {
+                throw new IllegalArgumentException("Cannot continue the order after a " + ((columnValue == null) ? "null" : "blob") + " value");
+            }
+            keyArgs.add(columnValue.toString());
+        }
+        keyArgs.add(String.valueOf(id));
+
+        List<String> keyColumns = new ArrayList<>(columns);
+        keyColumns.add(ID);
+        List<Boolean> descending = getKeysetDescending(keyColumns.size());
+        if (columns.size() == getOrderTerms().size()) {
+            orderBy = orderBy.trim().isEmpty() ? ID : orderBy + ", " + ID;
+        }
+
+        //Row values like (a, id) > (?, ?) need SQLite 3.15, so the comparison is spelled out.
+        //The leading bound on the first column lets SQLite seek its index.
+        StringBuilder keyset = new StringBuilder();
+        List<String> keysetArgs = new ArrayList<>();
+        keyset.append(keyColumns.get(0)).append(descending.get(0) ? " <= ?" : " >= ?").append(" AND (");
+        keysetArgs.add(keyArgs.get(0));
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                keyset.append(" OR ");
+            }
+
+            keyset.append(LEFT_PARENTHESIS);
+            for (int k = 0; k < i; k++) {
+                keyset.append(keyColumns.get(k)).append(" = ? AND ");
+                keysetArgs.add(keyArgs.get(k));
+            }
+            keyset.append(keyColumns.get(i)).append(descending.get(i) ? " < ?" : " > ?").append(RIGHT_PARENTHESIS);
+            keysetArgs.add(keyArgs.get(i));
+        }
+        keyset.append(RIGHT_PARENTHESIS);
+
+        whereClause = whereClause.isEmpty()
+                ? keyset.toString()
+                : LEFT_PARENTHESIS + whereClause + ") AND (" + keyset + RIGHT_PARENTHESIS;
+        if (arguments != null) {
+            List<String> allArguments = new ArrayList<>(Arrays.asList(arguments));
+            allArguments.addAll(keysetArgs);
+            arguments = convertArgs(allArguments);
+        } else {
+            args.addAll(keysetArgs);
+        }
+        return this;
+    }
+
+    /**
+     * @return the ordered columns before the id, which ends the keyset order
+     */
+    private List<String> getKeysetColumns() {
+        List<String> columns = new ArrayList<>();
+        for (String term : getOrderTerms()) {
+            String column = term.split("\\s+")[0];
+            if (column.equalsIgnoreCase(ID)) {
+                break;
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    private List<Boolean> getKeysetDescending(int size) {
+        List<Boolean> descending = new ArrayList<>();
+        for (String term : getOrderTerms()) {
+            String[] words = term.split("\\s+");
+            descending.add(words.length == 2 && words[1].equalsIgnoreCase("DESC"));
+            if (words[0].equalsIgnoreCase(ID)) {
+                break;
+            }
+        }
+
+        //The id breaks ties in ascending order unless it was ordered explicitly
+        while (descending.size() < size) {
+            descending.add(false);
+        }
+        return descending;
+    }
+
+    private List<String> getOrderTerms() {
+        List<String> terms = new ArrayList<>();
+        if (orderBy.trim().isEmpty()) {
+            return terms;
+        }
+
+        for (String term : orderBy.split(",")) {
+            term = term.trim();
+            String[] words = term.split("\\s+");
+            if (words.length > 2 || (words.length == 2 && !words[1].equalsIgnoreCase("ASC") && !words[1].equalsIgnoreCase("DESC"))) {
+                throw new IllegalArgumentException("Cannot continue the order " + orderBy + ", it must list columns");
+            }
+            terms.add(term);
+        }
+        return terms;
+    }
+
+    private ColumnBinder findBinder(BindingPlan bindingPlan, String column) {
+        for (ColumnBinder binder : bindingPlan.getTableBinders()) {
+            if (NamingHelper.toSQLName(binder.getField()).equalsIgnoreCase(column)) {
+                return binder;
+            }
+        }
+        throw new IllegalArgumentException(record.getSimpleName() + " has no column " + column);
+    }
+
     public Cursor getCursor() {
        return SugarRecord.getCursor(record, whereClause, arguments, groupBy, orderBy, limit);
     }
@@ -149,9 +291,106 @@ public class Select<T> implements Iterable {
             arguments = convertArgs(args);
         }
 
+        if (properties != null) {
+            return SugarRecord.findColumns(record, properties, whereClause, arguments, groupBy, orderBy, limit);
+        }
         return SugarRecord.find(record, whereClause, arguments, groupBy, orderBy, limit);
     }
+
+    /**
+     * Reads the matching rows into instances of another class, such as a plain data class,
+     * with a field for each column to read.
+     *
+     * @see SugarRecord#findInto
+     */
+    public <D> List<D> into(Class<D> resultType) {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return SugarRecord.findInto(resultType, record, properties, whereClause, arguments, groupBy, orderBy, limit);
+    }
     
+    /**
+     * @see SugarRecord#pluckLongs
+     */
+    public long[] pluckLongs(String property) {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return SugarRecord.pluckLongs(record, property, whereClause, arguments, groupBy, orderBy, limit);
+    }
+
+    /**
+     * @see SugarRecord#pluckDoubles
+     */
+    public double[] pluckDoubles(String property) {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return SugarRecord.pluckDoubles(record, property, whereClause, arguments, groupBy, orderBy, limit);
+    }
+
+    /**
+     * @see SugarRecord#pluckStrings
+     */
+    public String[] pluckStrings(String property) {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return SugarRecord.pluckStrings(record, property, whereClause, arguments, groupBy, orderBy, limit);
+    }
+
+    public double sum(String property) {
+        return aggregateRows(Aggregate.SUM, property);
+    }
+
+    /**
+     * @return the average, or NaN if no row matches
+     */
+    public double avg(String property) {
+        return aggregateRows(Aggregate.AVG, property);
+    }
+
+    /**
+     * @return the minimum, or NaN if no row matches
+     */
+    public double min(String property) {
+        return aggregateRows(Aggregate.MIN, property);
+    }
+
+    /**
+     * @return the maximum, or NaN if no row matches
+     */
+    public double max(String property) {
+        return aggregateRows(Aggregate.MAX, property);
+    }
+
+    /**
+     * Computes the aggregate for each group of {@link #groupBy(String)}, filtered by
+     * {@link #having(String, String...)}.
+     *
+     * @param property the name of the aggregated field, or null to count rows
+     */
+    public AggregateResult aggregate(Aggregate aggregate, String property) {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return SugarRecord.aggregateGroups(record, aggregate, property, whereClause, arguments, groupBy, having, havingArgs, orderBy, limit);
+    }
+
+    private double aggregateRows(Aggregate aggregate, String property) {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return SugarRecord.aggregate(record, aggregate, property, whereClause, arguments);
+    }
+
     public long count() {
         if (arguments == null) {
             arguments = convertArgs(args);
@@ -160,12 +399,28 @@ public class Select<T> implements Iterable {
         return SugarRecord.count(record, whereClause, arguments, groupBy, orderBy, limit);
     }
 
+    /**
+     * Deletes the rows matching the where clause without loading them. Order, group and limit
+     * are ignored.
+     *
+     * @return the number of deleted rows
+     */
+    public int delete() {
+        if (arguments == null) {
+            arguments = convertArgs(args);
+        }
+
+        return SugarRecord.deleteAll(record, whereClause, (arguments != null) ? SugarRecord.replaceArgs(arguments) : null);
+    }
+
     public T first() {
         if (arguments == null) {
             arguments = convertArgs(args);
         }
 
-        List<T> list = SugarRecord.find(record, whereClause, arguments, groupBy, orderBy, "1");
+        List<T> list = (properties != null)
+                ? SugarRecord.findColumns(record, properties, whereClause, arguments, groupBy, orderBy, "1")
+                : SugarRecord.find(record, whereClause, arguments, groupBy, orderBy, "1");
         return list.size() > 0 ? list.get(0) : null;
     }
     
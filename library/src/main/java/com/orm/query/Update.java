@@ -0,0 +1,121 @@
+package com.orm.query;
+
+import com.orm.SugarRecord;
+import com.orm.util.NamingHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds a single UPDATE statement changing every row that matches the conditions, without
+ * loading the entities. Entities loaded before are not refreshed.
+ */
+public class Update<T> {
+    private static final String SPACE = " ";
+    private static final String UPDATE = "UPDATE ";
+    private static final String SET = "SET ";
+    private static final String WHERE = "WHERE ";
+
+    private Class<T> record;
+    private String whereClause = "";
+    private List<String> columns = new ArrayList<>();
+    private List<Object> values = new ArrayList<>();
+    private List<String> args = new ArrayList<>();
+    private String[] arguments;
+
+    public Update(Class<T> record) {
+        this.record = record;
+    }
+
+    public static <T> Update<T> table(Class<T> record) {
+        return new Update<>(record);
+    }
+
+    /**
+     * Sets the column to the value. Entities are stored as their id.
+     */
+    public Update<T> set(String prop, Object value) {
+        columns.add(prop);
+        values.add(value);
+        return this;
+    }
+
+    public Update<T> where(String whereClause) {
+        this.whereClause = whereClause;
+        return this;
+    }
+
+    public Update<T> where(String whereClause, String[] args) {
+        this.whereClause = whereClause;
+        this.arguments = args;
+        return this;
+    }
+
+    public Update<T> where(Condition... condition) {
+        mergeConditions(condition, Condition.Type.AND);
+        return this;
+    }
+
+    public Update<T> whereOr(Condition... args) {
+        mergeConditions(args, Condition.Type.OR);
+        return this;
+    }
+
+    public Update<T> and(Condition... args) {
+        mergeConditions(args, Condition.Type.AND);
+        return this;
+    }
+
+    public Update<T> or(Condition... args) {
+        mergeConditions(args, Condition.Type.OR);
+        return this;
+    }
+
+    private void mergeConditions(Condition[] conditions, Condition.Type type) {
+        whereClause = Condition.merge(whereClause, conditions, type, false, args);
+    }
+
+    /**
+     * Executes the statement.
+     *
+     * @return the number of updated rows
+     */
+    public int execute() {
+        return SugarRecord.executeUpdateDelete(toSql(), getArgs());
+    }
+
+    public String toSql() {
+        if (columns.isEmpty()) {
+            throw new IllegalStateException("No column to update, call set first.");
+        }
+
+        StringBuilder sql = new StringBuilder();
+        sql.append(UPDATE).append(NamingHelper.toSQLName(this.record)).append(SPACE).append(SET);
+
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(",");
+            }
+            sql.append(columns.get(i)).append(" = ?");
+        }
+        sql.append(SPACE);
+
+        if (!whereClause.isEmpty()) {
+            sql.append(WHERE).append(whereClause).append(SPACE);
+        }
+
+        return sql.toString();
+    }
+
+    /**
+     * Lists the values to bind, the set values followed by the where arguments. Boolean where
+     * arguments are converted to the 1 and 0 they are stored as, like in {@link Select}.
+     */
+    public Object[] getArgs() {
+        List<Object> allArgs = new ArrayList<Object>(values);
+        String[] whereArgs = (arguments != null) ? arguments : args.toArray(new String[args.size()]);
+        allArgs.addAll(Arrays.asList(SugarRecord.replaceArgs(whereArgs)));
+        return allArgs.toArray();
+    }
+}
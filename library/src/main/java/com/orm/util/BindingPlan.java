@@ -0,0 +1,124 @@
+package com.orm.util;
+
+import android.util.Log;
+
+import com.orm.dsl.Id;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link ColumnBinder}s of an entity class, built once per class: one per table field, in
+ * the order of {@link ReflectionUtil#getTableFields(Class)}, and one per insert column, in the
+ * order of {@link ReflectionUtil#getInsertColumns(Class)}.
+ *
+ * When an {@link EntityAdapter} was generated for the class the binders access the fields
+ * through it, otherwise through reflection. The fields, annotations and column names the plan
+ * is built from are read through reflection either way.
+ */
+public final class BindingPlan {
+    private final EntityAdapter<?> adapter;
+    private final ColumnBinder[] tableBinders;
+    private final ColumnBinder[] insertBinders;
+    private final ColumnBinder idBinder;
+
+    private BindingPlan(Class<?> type) {
+        List<Field> fields = ReflectionUtil.getTableFields(type);
+        List<Field> insertColumns = ReflectionUtil.getInsertColumns(type);
+        int[] adapterIndexes = new int[fields.size()];
+        adapter = findAdapter(type, fields, adapterIndexes);
+
+        tableBinders = new ColumnBinder[fields.size()];
+        ColumnBinder namedIdBinder = null;
+        ColumnBinder annotatedIdBinder = null;
+        for (int i = 0; i < tableBinders.length; i++) {
+            Field field = fields.get(i);
+            FieldAccessor accessor = (adapter != null) ? FieldAccessor.of(adapter, adapterIndexes[i]) : FieldAccessor.of(field);
+            tableBinders[i] = ColumnBinder.forField(field, accessor);
+
+            if (field.isAnnotationPresent(Id.class)) {
+                annotatedIdBinder = tableBinders[i];
+            } else if (field.getName().equals("id") && namedIdBinder == null) {
+                namedIdBinder = tableBinders[i];
+            }
+        }
+        idBinder = (annotatedIdBinder != null) ? annotatedIdBinder : namedIdBinder;
+
+        insertBinders = new ColumnBinder[insertColumns.size()];
+        for (int i = 0; i < insertBinders.length; i++) {
+            insertBinders[i] = tableBinders[fields.indexOf(insertColumns.get(i))];
+        }
+    }
+
+    public static BindingPlan get(Class<?> type) {
+        BindingPlan bindingPlan = SugarConfig.getBindingPlan(type);
+
+        if (bindingPlan == null) {
+            bindingPlan = new BindingPlan(type);
+            SugarConfig.setBindingPlan(type, bindingPlan);
+        }
+
+        return bindingPlan;
+    }
+
+    /**
+     * Matches the fields of the adapter to the table fields by name, since the processor lists
+     * them in source order and reflection doesn't keep it. An adapter generated for an older
+     * version of the class lists other fields. It is ignored rather than risk writing a field
+     * to the wrong column.
+     *
+     * @param adapterIndexes receives the adapter index of each table field
+     */
+    private static EntityAdapter<?> findAdapter(Class<?> type, List<Field> fields, int[] adapterIndexes) {
+        EntityAdapter<?> adapter = EntityAdapter.find(type);
+        if (adapter == null) {
+            return null;
+        }
+
+        String[] fieldNames = adapter.getFieldNames();
+        Map<String, Integer> indexesByName = new HashMap<>();
+        for (int i = 0; i < fieldNames.length; i++) {
+            indexesByName.put(fieldNames[i], i);
+        }
+
+        //Shadowed fields share a name, so names can't tell them apart
+        boolean isMatching = indexesByName.size() == fieldNames.length && fieldNames.length == fields.size();
+        for (int i = 0; isMatching && i < adapterIndexes.length; i++) {
+            Integer index = indexesByName.get(fields.get(i).getName());
+            isMatching = index != null;
+            adapterIndexes[i] = isMatching ? index : -1;
+        }
+
+        if (!isMatching) {
+            Log.w("Sugar", "The adapter of " + type.getSimpleName() + " does not match its fields, using reflection");
+            return null;
+        }
+
+        return adapter;
+    }
+
+    /**
+     * @return the generated adapter of the class, or null if it is mapped through reflection
+     */
+    public EntityAdapter<?> getAdapter() {
+        return adapter;
+    }
+
+    public ColumnBinder[] getTableBinders() {
+        return tableBinders;
+    }
+
+    public ColumnBinder[] getInsertBinders() {
+        return insertBinders;
+    }
+
+    /**
+     * @return the binder of the field annotated with {@link Id}, or else of the field named
+     *         "id", null if the class has neither
+     */
+    public ColumnBinder getIdBinder() {
+        return idBinder;
+    }
+}
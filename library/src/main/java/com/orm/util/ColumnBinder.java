@@ -0,0 +1,664 @@
+package com.orm.util;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.orm.Ref;
+import com.orm.SugarRecord;
+import com.orm.dsl.Id;
+import com.orm.dsl.Table;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Reads and writes the column of one field, specialized to the type of the field when the
+ * {@link BindingPlan} of its class is built, so rows are mapped without dispatching on types.
+ *
+ * Written values take the form {@link ReflectionUtil#bindValue} binds: a Long, Double, String,
+ * byte[] or null.
+ */
+public abstract class ColumnBinder {
+    protected final Field field;
+    final FieldAccessor accessor;
+
+    ColumnBinder(Field field, FieldAccessor accessor) {
+        this.field = field;
+        this.accessor = accessor;
+    }
+
+    /**
+     * Creates the binder for the type of the field, accessing the field through reflection.
+     */
+    public static ColumnBinder forField(Field field) {
+        return forField(field, FieldAccessor.of(field));
+    }
+
+    static ColumnBinder forField(Field field, FieldAccessor accessor) {
+        Class<?> type = field.getType();
+
+        if (NamingHelper.toSQLName(field).equalsIgnoreCase("id") || field.isAnnotationPresent(Id.class)) {
+            return new IdBinder(field, accessor);
+        } else if (type.equals(Ref.class)) {
+            return new RefBinder(field, accessor);
+        } else if (type.isAnnotationPresent(Table.class)) {
+            return new TableReferenceBinder(field, accessor);
+        } else if (SugarRecord.class.isAssignableFrom(type)) {
+            return new RecordReferenceBinder(field, accessor);
+        } else if (type.equals(long.class)) {
+            return new PrimitiveLongBinder(field, accessor);
+        } else if (type.equals(Long.class)) {
+            return new LongBinder(field, accessor);
+        } else if (type.equals(int.class)) {
+            return new PrimitiveIntBinder(field, accessor);
+        } else if (type.equals(Integer.class)) {
+            return new IntegerBinder(field, accessor);
+        } else if (type.equals(short.class) || type.equals(Short.class)) {
+            return new ShortBinder(field, accessor);
+        } else if (type.equals(double.class)) {
+            return new PrimitiveDoubleBinder(field, accessor);
+        } else if (type.equals(Double.class)) {
+            return new DoubleBinder(field, accessor);
+        } else if (type.equals(float.class) || type.equals(Float.class)) {
+            return new FloatBinder(field, accessor);
+        } else if (type.equals(boolean.class) || type.equals(Boolean.class)) {
+            return new BooleanBinder(field, accessor);
+        } else if (type.equals(String.class)) {
+            return new StringBinder(field, accessor);
+        } else if (type.equals(BigDecimal.class)) {
+            return new BigDecimalBinder(field, accessor);
+        } else if (type.equals(Timestamp.class)) {
+            return new TimestampBinder(field, accessor);
+        } else if (type.equals(Date.class)) {
+            return new DateBinder(field, accessor);
+        } else if (type.equals(Calendar.class)) {
+            return new CalendarBinder(field, accessor);
+        } else if (type.equals(byte[].class)) {
+            return new BytesBinder(field, accessor);
+        } else if (type.isEnum()) {
+            return new EnumBinder(field, accessor);
+        } else {
+            return new UnsupportedBinder(field, accessor);
+        }
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Tells if the column holds the id of another entity, which the caller has to load.
+     */
+    public boolean isReference() {
+        return false;
+    }
+
+    /**
+     * Reads the field as it is held by the object.
+     */
+    public Object get(Object object) throws IllegalAccessException {
+        return accessor.get(object);
+    }
+
+    public void set(Object object, Object value) throws IllegalAccessException {
+        accessor.set(object, value);
+    }
+
+    /**
+     * Copies the field as reading the row again would set it. Mutable values are copied too.
+     * Fields holding a reference are left to the caller.
+     */
+    public void copy(Object source, Object target) throws IllegalAccessException {
+        accessor.set(target, accessor.get(source));
+    }
+
+    /**
+     * Reads the value the field is stored as.
+     */
+    public abstract Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException;
+
+    public void bind(SQLiteStatement statement, int index, Object object, Map<Object, Long> entitiesMap)
+            throws IllegalAccessException {
+        ReflectionUtil.bindValue(statement, index, getValue(object, entitiesMap));
+    }
+
+    /**
+     * Sets the field from a column that is not null.
+     */
+    abstract void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException;
+
+    /**
+     * Sets the field from its column, leaving it untouched if the column is null.
+     *
+     * @param columnIndex the index of the column, negative if the cursor has none
+     */
+    public final void setFromCursor(Cursor cursor, int columnIndex, Object object) {
+        //TODO auto upgrade to add new columns
+        if (columnIndex < 0) {
+            Log.e("SUGAR", "Invalid colName, you should upgrade database");
+            return;
+        }
+
+        if (cursor.isNull(columnIndex)) {
+            return;
+        }
+
+        try {
+            read(cursor, columnIndex, object);
+        } catch (IllegalArgumentException | IllegalAccessException e) {
+            Log.e("field set error", e.getMessage());
+        }
+    }
+
+    private static void logUnreadable(Field field) {
+        Log.e("Sugar", "Class cannot be read from Sqlite3 database. Please check the type of field " + field.getName() + "(" + field.getType().getName() + ")");
+    }
+
+    private static class IdBinder extends ColumnBinder {
+        IdBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Object value = accessor.get(object);
+            return (value == null) ? null : ReflectionUtil.toColumnValue(value);
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.set(object, cursor.getLong(columnIndex));
+        }
+    }
+
+    private static class TableReferenceBinder extends ColumnBinder {
+        private final Field primaryKeyField;
+
+        TableReferenceBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+
+            Class<?> type = field.getType();
+            Field primaryKey;
+            try {
+                primaryKey = type.getDeclaredField(type.getAnnotation(Table.class).primaryKeyField());
+                primaryKey.setAccessible(true);
+            } catch (NoSuchFieldException e) {
+                primaryKey = null;
+            }
+            this.primaryKeyField = primaryKey;
+        }
+
+        @Override
+        public boolean isReference() {
+            return true;
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Object reference = accessor.get(object);
+            if (reference == null) {
+                return null;
+            }
+
+            if (primaryKeyField == null) {
+                return entitiesMap.get(reference);
+            }
+
+            Number id = (Number) primaryKeyField.get(reference);
+            return (id != null) ? id.longValue() : null;
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) {
+            //References are loaded by the caller
+            logUnreadable(field);
+        }
+    }
+
+    private static class RecordReferenceBinder extends ColumnBinder {
+        RecordReferenceBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public boolean isReference() {
+            return true;
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            SugarRecord reference = (SugarRecord) accessor.get(object);
+            Long id = (reference != null) ? reference.getId() : null;
+            return (id != null) ? id : 0L;
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) {
+            //References are loaded by the caller
+            logUnreadable(field);
+        }
+    }
+
+    /**
+     * Stores the id of the referenced entity and reads it back into a {@link Ref} that loads the
+     * entity on first access.
+     */
+    private static class RefBinder extends ColumnBinder {
+        private final Class<?> referencedType;
+
+        RefBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+
+            Class<?> type = null;
+            if (field.getGenericType() instanceof ParameterizedType) {
+                Object typeArgument = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+                if (typeArgument instanceof Class) {
+                    type = (Class<?>) typeArgument;
+                }
+            }
+            this.referencedType = type;
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Ref<?> ref = (Ref<?>) accessor.get(object);
+            return (ref != null) ? ref.getId() : null;
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            long id = cursor.getLong(columnIndex);
+            if (referencedType == null) {
+                logUnreadable(field);
+            } else {
+                accessor.set(object, (id > 0) ? Ref.to(referencedType, id) : null);
+            }
+        }
+
+        @Override
+        public void copy(Object source, Object target) throws IllegalAccessException {
+            Ref<?> ref = (Ref<?>) accessor.get(source);
+            Long id = (ref != null) ? ref.getId() : null;
+            accessor.set(target, (id != null && referencedType != null) ? Ref.to(referencedType, id) : ref);
+        }
+    }
+
+    private static class PrimitiveLongBinder extends ColumnBinder {
+        PrimitiveLongBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            return accessor.getLong(object);
+        }
+
+        @Override
+        public void bind(SQLiteStatement statement, int index, Object object, Map<Object, Long> entitiesMap)
+                throws IllegalAccessException {
+            statement.bindLong(index, accessor.getLong(object));
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.setLong(object, cursor.getLong(columnIndex));
+        }
+    }
+
+    private static class LongBinder extends ColumnBinder {
+        LongBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            return accessor.get(object);
+        }
+
+        @Override
+        public void bind(SQLiteStatement statement, int index, Object object, Map<Object, Long> entitiesMap)
+                throws IllegalAccessException {
+            Long value = (Long) accessor.get(object);
+            if (value == null) {
+                statement.bindNull(index);
+            } else {
+                statement.bindLong(index, value);
+            }
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.set(object, cursor.getLong(columnIndex));
+        }
+    }
+
+    private static class PrimitiveIntBinder extends ColumnBinder {
+        PrimitiveIntBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            return (long) accessor.getInt(object);
+        }
+
+        @Override
+        public void bind(SQLiteStatement statement, int index, Object object, Map<Object, Long> entitiesMap)
+                throws IllegalAccessException {
+            statement.bindLong(index, accessor.getInt(object));
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.setInt(object, cursor.getInt(columnIndex));
+        }
+    }
+
+    private static class IntegerBinder extends ColumnBinder {
+        IntegerBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Integer value = (Integer) accessor.get(object);
+            return (value == null) ? null : value.longValue();
+        }
+
+        @Override
+        public void bind(SQLiteStatement statement, int index, Object object, Map<Object, Long> entitiesMap)
+                throws IllegalAccessException {
+            Integer value = (Integer) accessor.get(object);
+            if (value == null) {
+                statement.bindNull(index);
+            } else {
+                statement.bindLong(index, value);
+            }
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.set(object, cursor.getInt(columnIndex));
+        }
+    }
+
+    private static class ShortBinder extends ColumnBinder {
+        ShortBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Short value = (Short) accessor.get(object);
+            return (value == null) ? null : value.longValue();
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.set(object, cursor.getShort(columnIndex));
+        }
+    }
+
+    private static class PrimitiveDoubleBinder extends ColumnBinder {
+        PrimitiveDoubleBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            return accessor.getDouble(object);
+        }
+
+        @Override
+        public void bind(SQLiteStatement statement, int index, Object object, Map<Object, Long> entitiesMap)
+                throws IllegalAccessException {
+            statement.bindDouble(index, accessor.getDouble(object));
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.setDouble(object, cursor.getDouble(columnIndex));
+        }
+    }
+
+    private static class DoubleBinder extends ColumnBinder {
+        DoubleBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            return accessor.get(object);
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.set(object, cursor.getDouble(columnIndex));
+        }
+    }
+
+    private static class FloatBinder extends ColumnBinder {
+        FloatBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Float value = (Float) accessor.get(object);
+            return (value == null) ? null : value.doubleValue();
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.set(object, cursor.getFloat(columnIndex));
+        }
+    }
+
+    private static class BooleanBinder extends ColumnBinder {
+        BooleanBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Boolean value = (Boolean) accessor.get(object);
+            return (value == null) ? null : (value ? 1L : 0L);
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.set(object, cursor.getString(columnIndex).equals("1"));
+        }
+    }
+
+    private static class StringBinder extends ColumnBinder {
+        StringBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            return accessor.get(object);
+        }
+
+        @Override
+        public void bind(SQLiteStatement statement, int index, Object object, Map<Object, Long> entitiesMap)
+                throws IllegalAccessException {
+            String value = (String) accessor.get(object);
+            if (value == null) {
+                statement.bindNull(index);
+            } else {
+                statement.bindString(index, value);
+            }
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            String value = cursor.getString(columnIndex);
+            accessor.set(object, value != null && value.equals("null") ? null : value);
+        }
+    }
+
+    private static class BigDecimalBinder extends ColumnBinder {
+        BigDecimalBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Object value = accessor.get(object);
+            return (value == null) ? null : value.toString();
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            String value = cursor.getString(columnIndex);
+            accessor.set(object, value != null && value.equals("null") ? null : new BigDecimal(value));
+        }
+    }
+
+    private static class TimestampBinder extends ColumnBinder {
+        TimestampBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Timestamp value = (Timestamp) accessor.get(object);
+            return (value == null) ? null : value.getTime();
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.set(object, new Timestamp(cursor.getLong(columnIndex)));
+        }
+
+        @Override
+        public void copy(Object source, Object target) throws IllegalAccessException {
+            Timestamp value = (Timestamp) accessor.get(source);
+            accessor.set(target, (value == null) ? null : value.clone());
+        }
+    }
+
+    private static class DateBinder extends ColumnBinder {
+        DateBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Date value = (Date) accessor.get(object);
+            return (value == null) ? null : value.getTime();
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            accessor.set(object, new Date(cursor.getLong(columnIndex)));
+        }
+
+        @Override
+        public void copy(Object source, Object target) throws IllegalAccessException {
+            Date value = (Date) accessor.get(source);
+            accessor.set(target, (value == null) ? null : value.clone());
+        }
+    }
+
+    private static class CalendarBinder extends ColumnBinder {
+        CalendarBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Calendar value = (Calendar) accessor.get(object);
+            return (value == null) ? null : value.getTimeInMillis();
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(cursor.getLong(columnIndex));
+            accessor.set(object, calendar);
+        }
+
+        @Override
+        public void copy(Object source, Object target) throws IllegalAccessException {
+            Calendar value = (Calendar) accessor.get(source);
+            accessor.set(target, (value == null) ? null : value.clone());
+        }
+    }
+
+    private static class BytesBinder extends ColumnBinder {
+        BytesBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Object value = accessor.get(object);
+            return (value == null) ? "".getBytes() : value;
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            byte[] bytes = cursor.getBlob(columnIndex);
+            accessor.set(object, (bytes == null) ? "".getBytes() : bytes);
+        }
+
+        @Override
+        public void copy(Object source, Object target) throws IllegalAccessException {
+            byte[] value = (byte[]) accessor.get(source);
+            accessor.set(target, (value == null) ? null : value.clone());
+        }
+    }
+
+    private static class EnumBinder extends ColumnBinder {
+        EnumBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Enum value = (Enum) accessor.get(object);
+            return (value == null) ? null : value.name();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void read(Cursor cursor, int columnIndex, Object object) throws IllegalAccessException {
+            try {
+                accessor.set(object, Enum.valueOf((Class<Enum>) field.getType(), cursor.getString(columnIndex)));
+            } catch (IllegalArgumentException e) {
+                Log.e("Sugar", "Enum cannot be read from Sqlite3 database. Please check the type of field " + field.getName());
+            }
+        }
+    }
+
+    private static class UnsupportedBinder extends ColumnBinder {
+        UnsupportedBinder(Field field, FieldAccessor accessor) {
+            super(field, accessor);
+        }
+
+        @Override
+        public Object getValue(Object object, Map<Object, Long> entitiesMap) throws IllegalAccessException {
+            Object value = accessor.get(object);
+            return (value == null) ? null : String.valueOf(value);
+        }
+
+        @Override
+        void read(Cursor cursor, int columnIndex, Object object) {
+            logUnreadable(field);
+        }
+
+        @Override
+        public void copy(Object source, Object target) {
+            //Rows don't set the field either
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.orm.util;
+
+import android.util.Log;
+
+/**
+ * Reflection-free access to the fields of an entity class. Adapters are generated at compile
+ * time by the sugar-processor module, as {@code <EntityClass>_SugarAdapter} next to the
+ * entity, and picked up by the {@link BindingPlan} of the class. Classes without an adapter
+ * are mapped through reflection.
+ *
+ * An adapter only replaces the per-row work: creating instances and reading and writing their
+ * fields. The columns, their types and the relationships of the class are still found through
+ * reflection, once, when its {@link BindingPlan} is built.
+ *
+ * Fields are addressed by their position in {@link #getFieldNames()}, which lists the table
+ * fields in the order of {@link ReflectionUtil#getTableFields(Class)}.
+ */
+public abstract class EntityAdapter<T> {
+    public static final String SUFFIX = "_SugarAdapter";
+
+    public abstract String[] getFieldNames();
+
+    public abstract T newInstance();
+
+    public abstract Object get(T object, int field);
+
+    public abstract void set(T object, int field, Object value);
+
+    public long getLong(T object, int field) {
+        return ((Number) get(object, field)).longValue();
+    }
+
+    public void setLong(T object, int field, long value) {
+        set(object, field, value);
+    }
+
+    public int getInt(T object, int field) {
+        return ((Number) get(object, field)).intValue();
+    }
+
+    public void setInt(T object, int field, int value) {
+        set(object, field, value);
+    }
+
+    public double getDouble(T object, int field) {
+        return ((Number) get(object, field)).doubleValue();
+    }
+
+    public void setDouble(T object, int field, double value) {
+        set(object, field, value);
+    }
+
+    /**
+     * Loads the generated adapter of the class.
+     *
+     * @return the adapter, or null if none was generated
+     */
+    @SuppressWarnings("unchecked")
+    static <T> EntityAdapter<T> find(Class<T> type) {
+        try {
+            Class<?> adapterClass = Class.forName(type.getName() + SUFFIX, true, type.getClassLoader());
+            return (EntityAdapter<T>) adapterClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            Log.e("Sugar", "Cannot create the adapter of " + type.getSimpleName(), e);
+            return null;
+        }
+    }
+}
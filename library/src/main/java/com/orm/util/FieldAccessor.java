@@ -0,0 +1,133 @@
+package com.orm.util;
+
+import java.lang.reflect.Field;
+
+/**
+ * Reads and writes one field of an entity, through its generated {@link EntityAdapter} or else
+ * through reflection.
+ */
+abstract class FieldAccessor {
+    abstract Object get(Object object) throws IllegalAccessException;
+
+    abstract void set(Object object, Object value) throws IllegalAccessException;
+
+    abstract long getLong(Object object) throws IllegalAccessException;
+
+    abstract void setLong(Object object, long value) throws IllegalAccessException;
+
+    abstract int getInt(Object object) throws IllegalAccessException;
+
+    abstract void setInt(Object object, int value) throws IllegalAccessException;
+
+    abstract double getDouble(Object object) throws IllegalAccessException;
+
+    abstract void setDouble(Object object, double value) throws IllegalAccessException;
+
+    static FieldAccessor of(Field field) {
+        return new ReflectiveAccessor(field);
+    }
+
+    @SuppressWarnings("unchecked")
+    static FieldAccessor of(EntityAdapter<?> adapter, int index) {
+        return new AdapterAccessor((EntityAdapter<Object>) adapter, index);
+    }
+
+    private static class ReflectiveAccessor extends FieldAccessor {
+        private final Field field;
+
+        ReflectiveAccessor(Field field) {
+            this.field = field;
+            this.field.setAccessible(true);
+        }
+
+        @Override
+        Object get(Object object) throws IllegalAccessException {
+            return field.get(object);
+        }
+
+        @Override
+        void set(Object object, Object value) throws IllegalAccessException {
+            field.set(object, value);
+        }
+
+        @Override
+        long getLong(Object object) throws IllegalAccessException {
+            return field.getLong(object);
+        }
+
+        @Override
+        void setLong(Object object, long value) throws IllegalAccessException {
+            field.setLong(object, value);
+        }
+
+        @Override
+        int getInt(Object object) throws IllegalAccessException {
+            return field.getInt(object);
+        }
+
+        @Override
+        void setInt(Object object, int value) throws IllegalAccessException {
+            field.setInt(object, value);
+        }
+
+        @Override
+        double getDouble(Object object) throws IllegalAccessException {
+            return field.getDouble(object);
+        }
+
+        @Override
+        void setDouble(Object object, double value) throws IllegalAccessException {
+            field.setDouble(object, value);
+        }
+    }
+
+    private static class AdapterAccessor extends FieldAccessor {
+        private final EntityAdapter<Object> adapter;
+        private final int index;
+
+        AdapterAccessor(EntityAdapter<Object> adapter, int index) {
+            this.adapter = adapter;
+            this.index = index;
+        }
+
+        @Override
+        Object get(Object object) {
+            return adapter.get(object, index);
+        }
+
+        @Override
+        void set(Object object, Object value) {
+            adapter.set(object, index, value);
+        }
+
+        @Override
+        long getLong(Object object) {
+            return adapter.getLong(object, index);
+        }
+
+        @Override
+        void setLong(Object object, long value) {
+            adapter.setLong(object, index, value);
+        }
+
+        @Override
+        int getInt(Object object) {
+            return adapter.getInt(object, index);
+        }
+
+        @Override
+        void setInt(Object object, int value) {
+            adapter.setInt(object, index, value);
+        }
+
+        @Override
+        double getDouble(Object object) {
+            return adapter.getDouble(object, index);
+        }
+
+        @Override
+        void setDouble(Object object, double value) {
+            adapter.setDouble(object, index, value);
+        }
+    }
+}
@@ -12,6 +12,8 @@ import static com.orm.util.ContextUtil.*;
 public final class ManifestHelper {
     private static final String LOG_TAG = "Sugar";
     private static Boolean debugEnabled = null;
+    private static Boolean upsertEnabled = null;
+    private static Boolean writeAheadLoggingEnabled = null;
 
     /**
      * Key for the database name meta data.
@@ -25,6 +27,21 @@ public final class ManifestHelper {
     public final static String METADATA_DOMAIN_PACKAGE_NAME = "DOMAIN_PACKAGE_NAME";
     public final static String METADATA_QUERY_LOG = "QUERY_LOG";
 
+    /**
+     * Key for the meta data making every entity save in place, see {@link com.orm.dsl.Upsert}.
+     */
+    public final static String METADATA_UPSERT = "UPSERT";
+
+    /**
+     * Key for the meta data opening the database in write-ahead logging mode.
+     */
+    public final static String METADATA_WRITE_AHEAD_LOGGING = "WRITE_AHEAD_LOGGING";
+
+    /**
+     * Key for the meta data setting how long a connection waits for a lock, in milliseconds.
+     */
+    public final static String METADATA_BUSY_TIMEOUT = "BUSY_TIMEOUT";
+
     /**
      * The default name for the database unless specified in the AndroidManifest.
      */
@@ -93,6 +110,36 @@ public final class ManifestHelper {
         return (null == debugEnabled) ? debugEnabled = getMetaDataBoolean(METADATA_QUERY_LOG) : debugEnabled;
     }
 
+    /**
+     * Grabs the upsert flag from the manifest.
+     *
+     * @return true if entities with a known id are updated in place by default
+     */
+    public static boolean isUpsertEnabled() {
+        return (null == upsertEnabled) ? upsertEnabled = getMetaDataBoolean(METADATA_UPSERT) : upsertEnabled;
+    }
+
+    /**
+     * Grabs the write-ahead logging flag from the manifest.
+     *
+     * @return true if the database is opened in write-ahead logging mode
+     */
+    public static boolean isWriteAheadLoggingEnabled() {
+        return (null == writeAheadLoggingEnabled)
+                ? writeAheadLoggingEnabled = getMetaDataBoolean(METADATA_WRITE_AHEAD_LOGGING)
+                : writeAheadLoggingEnabled;
+    }
+
+    /**
+     * Grabs the busy timeout from the manifest.
+     *
+     * @return the milliseconds a connection waits for a lock, or 0 to keep the platform default
+     */
+    public static int getBusyTimeout() {
+        Integer busyTimeout = getMetaDataInteger(METADATA_BUSY_TIMEOUT);
+        return (busyTimeout == null) ? 0 : busyTimeout;
+    }
+
     private static String getMetaDataString(String name) {
         PackageManager pm = getPackageManager();
         String value = null;
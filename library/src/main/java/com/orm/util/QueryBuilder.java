@@ -1,10 +1,12 @@
 package com.orm.util;
 
+import com.orm.Ref;
 import com.orm.SugarRecord;
 
 import java.lang.RuntimeException;
 import java.lang.StringBuilder;
 import java.math.BigDecimal;
+import java.util.List;
 
 public class QueryBuilder {
 
@@ -14,7 +16,8 @@ public class QueryBuilder {
                 (type.equals(Integer.class)) ||
                 (type.equals(Integer.TYPE)) ||
                 (type.equals(Long.class)) ||
-                (type.equals(Long.TYPE)) || (
+                (type.equals(Long.TYPE)) ||
+                (type.equals(Ref.class)) || (
                 (!type.isPrimitive()) &&
                         (SugarRecord.class.isAssignableFrom(type))))  {
             return "INTEGER";
@@ -55,4 +58,78 @@ public class QueryBuilder {
         }
         return stringBuilder.toString();
     }
+
+    public static String getInsertSQL(String tableName, List<String> columnNames) {
+        return getInsertSQL(tableName, columnNames, 1);
+    }
+
+    public static String getInsertSQL(String tableName, List<String> columnNames, int rows) {
+        return getInsertSQL("INSERT OR REPLACE INTO ", tableName, columnNames, rows);
+    }
+
+    public static String getInsertOrIgnoreSQL(String tableName, List<String> columnNames) {
+        return getInsertSQL("INSERT OR IGNORE INTO ", tableName, columnNames, 1);
+    }
+
+    /**
+     * Builds a native upsert, which needs SQLite 3.24. The ID has to be one of the columns, every
+     * other column is updated when a row with the same ID exists.
+     */
+    public static String getUpsertSQL(String tableName, List<String> columnNames, int rows) {
+        StringBuilder stringBuilder = new StringBuilder(getInsertSQL("INSERT INTO ", tableName, columnNames, rows));
+        stringBuilder.append(" ON CONFLICT(ID) DO ");
+
+        boolean isFirst = true;
+        for (String columnName : columnNames) {
+            if (columnName.equals("ID")) {
+                continue;
+            }
+            stringBuilder.append(isFirst ? "UPDATE SET " : ",");
+            stringBuilder.append(columnName).append("=excluded.").append(columnName);
+            isFirst = false;
+        }
+
+        if (isFirst) {
+            stringBuilder.append("NOTHING");
+        }
+        return stringBuilder.toString();
+    }
+
+    public static String getUpdateSQL(String tableName, List<String> columnNames) {
+        StringBuilder stringBuilder = new StringBuilder("UPDATE ");
+        stringBuilder.append(tableName).append(" SET ");
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (i > 0) {
+                stringBuilder.append(",");
+            }
+            stringBuilder.append(columnNames.get(i)).append("=?");
+        }
+        stringBuilder.append(" WHERE ID=?");
+        return stringBuilder.toString();
+    }
+
+    public static String getDeleteSQL(String tableName, int ids) {
+        return "DELETE FROM " + tableName + " WHERE ID IN (" + generatePlaceholders(ids) + ")";
+    }
+
+    private static String getInsertSQL(String insert, String tableName, List<String> columnNames, int rows) {
+        if (rows < 1) {
+            throw new RuntimeException("The number of rows must be greater than or equal to 1.");
+        }
+
+        String rowPlaceholders = "(" + generatePlaceholders(columnNames.size()) + ")";
+        StringBuilder stringBuilder = new StringBuilder(insert);
+        stringBuilder.append(tableName).append(" (");
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (i > 0) {
+                stringBuilder.append(",");
+            }
+            stringBuilder.append(columnNames.get(i));
+        }
+        stringBuilder.append(") VALUES ").append(rowPlaceholders);
+        for (int i = 1; i < rows; i++) {
+            stringBuilder.append(",").append(rowPlaceholders);
+        }
+        return stringBuilder.toString();
+    }
 }
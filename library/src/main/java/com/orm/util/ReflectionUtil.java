@@ -4,6 +4,7 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import com.google.common.collect.ListMultimap;
@@ -171,6 +172,31 @@ public class ReflectionUtil {
         return toStore;
     }
 
+    /**
+     * Lists the fields that are written as columns when an entity is inserted, in bind order.
+     * The id field and relationship collections, which live in join tables, are left out.
+     */
+    public static List<Field> getInsertColumns(Class table) {
+        List<Field> columns = SugarConfig.getInsertColumns(table);
+        if (columns != null) return columns;
+
+        columns = new ArrayList<>();
+        for (Field field : getTableFields(table)) {
+            if (field.getName().equals("id")) {
+                continue;
+            }
+
+            if (field.isAnnotationPresent(Relationship.class) && !SugarRecord.isSugarEntity(field.getType())) {
+                continue;
+            }
+
+            columns.add(field);
+        }
+
+        SugarConfig.setInsertColumns(table, columns);
+        return columns;
+    }
+
     private static List<Field> getAllFields(List<Field> fields, Class<?> type) {
         Collections.addAll(fields, type.getDeclaredFields());
 
@@ -339,85 +365,62 @@ public class ReflectionUtil {
         return relationshipList;
     }
 
-    public static void setFieldValueFromCursor(Cursor cursor, Field field, Object object) {
-        field.setAccessible(true);
-        try {
-            Class fieldType = field.getType();
-            String colName = NamingHelper.toSQLName(field);
-
-            int columnIndex = cursor.getColumnIndex(colName);
-
-            //TODO auto upgrade to add new columns
-            if (columnIndex < 0) {
-                Log.e("SUGAR", "Invalid colName, you should upgrade database");
-                return;
-            }
+    /**
+     * Binds a value as returned by {@link ColumnBinder#getValue}.
+     */
+    public static void bindValue(SQLiteStatement statement, int index, Object value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else if (value instanceof Long) {
+            statement.bindLong(index, (Long) value);
+        } else if (value instanceof Double) {
+            statement.bindDouble(index, (Double) value);
+        } else if (value instanceof byte[]) {
+            statement.bindBlob(index, (byte[]) value);
+        } else {
+            statement.bindString(index, value.toString());
+        }
+    }
 
-            if (cursor.isNull(columnIndex)) {
-                return;
+    /**
+     * Converts a value to the form Sugar stores it in, going by its runtime type. References are
+     * stored as the id of the referenced entity.
+     */
+    public static Object toColumnValue(Object value) {
+        if (value == null || value instanceof byte[]) {
+            return value;
+        } else if (value instanceof SugarRecord) {
+            return ((SugarRecord) value).getId();
+        } else if (value.getClass().isAnnotationPresent(Table.class)) {
+            try {
+                Field field = value.getClass().getDeclaredField(value.getClass().getAnnotation(Table.class).primaryKeyField());
+                field.setAccessible(true);
+                Number id = (Number) field.get(value);
+                return (id != null) ? id.longValue() : null;
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                throw new IllegalArgumentException(value.getClass().getSimpleName() + " has no readable primary key field");
             }
-
-            if (colName.equalsIgnoreCase("id") || field.isAnnotationPresent(Id.class)) {
-                long cid = cursor.getLong(columnIndex);
-                field.set(object, cid);
-            } else if (fieldType.equals(long.class) || fieldType.equals(Long.class)) {
-                field.set(object,
-                        cursor.getLong(columnIndex));
-            } else if (fieldType.equals(String.class)) {
-                String val = cursor.getString(columnIndex);
-                field.set(object, val != null && val.equals("null") ? null : val);
-            } else if (fieldType.equals(double.class) || fieldType.equals(Double.class)) {
-                field.set(object,
-                        cursor.getDouble(columnIndex));
-            } else if (fieldType.equals(boolean.class) || fieldType.equals(Boolean.class)) {
-                field.set(object,
-                        cursor.getString(columnIndex).equals("1"));
-            } else if (fieldType.equals(int.class) || fieldType.equals(Integer.class)) {
-                field.set(object,
-                        cursor.getInt(columnIndex));
-            } else if (fieldType.equals(float.class) || fieldType.equals(Float.class)) {
-                field.set(object,
-                        cursor.getFloat(columnIndex));
-            } else if (fieldType.equals(short.class) || fieldType.equals(Short.class)) {
-                field.set(object,
-                        cursor.getShort(columnIndex));
-            } else if (fieldType.equals(BigDecimal.class)) {
-                String val = cursor.getString(columnIndex);
-                field.set(object, val != null && val.equals("null") ? null : new BigDecimal(val));
-            } else if (fieldType.equals(Timestamp.class)) {
-                long l = cursor.getLong(columnIndex);
-                field.set(object, new Timestamp(l));
-            } else if (fieldType.equals(Date.class)) {
-                long l = cursor.getLong(columnIndex);
-                field.set(object, new Date(l));
-            } else if (fieldType.equals(Calendar.class)) {
-                long l = cursor.getLong(columnIndex);
-                Calendar c = Calendar.getInstance();
-                c.setTimeInMillis(l);
-                field.set(object, c);
-            } else if (fieldType.equals(byte[].class)) {
-                byte[] bytes = cursor.getBlob(columnIndex);
-                if (bytes == null) {
-                    field.set(object, "".getBytes());
-                } else {
-                    field.set(object, cursor.getBlob(columnIndex));
-                }
-            } else if (Enum.class.isAssignableFrom(fieldType)) {
-                try {
-                    Method valueOf = field.getType().getMethod("valueOf", String.class);
-                    String strVal = cursor.getString(columnIndex);
-                    Object enumVal = valueOf.invoke(field.getType(), strVal);
-                    field.set(object, enumVal);
-                } catch (Exception e) {
-                    Log.e("Sugar", "Enum cannot be read from Sqlite3 database. Please check the type of field " + field.getName());
-                }
-            } else
-                Log.e("Sugar", "Class cannot be read from Sqlite3 database. Please check the type of field " + field.getName() + "(" + field.getType().getName() + ")");
-        } catch (IllegalArgumentException | IllegalAccessException e) {
-            Log.e("field set error", e.getMessage());
+        } else if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Float || value instanceof Double) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1L : 0L;
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Calendar) {
+            return ((Calendar) value).getTimeInMillis();
+        } else if (value instanceof Enum) {
+            return ((Enum) value).name();
+        } else {
+            return String.valueOf(value);
         }
     }
 
+    public static void setFieldValueFromCursor(Cursor cursor, Field field, Object object) {
+        ColumnBinder.forField(field).setFromCursor(cursor, cursor.getColumnIndex(NamingHelper.toSQLName(field)), object);
+    }
+
     private static Field getDeepField(String fieldName, Class<?> type) throws NoSuchFieldException {
         try {
             return type.getDeclaredField(fieldName);
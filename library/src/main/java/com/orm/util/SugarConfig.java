@@ -2,30 +2,46 @@ package com.orm.util;
 
 import java.lang.reflect.Field;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SugarConfig {
 
-    static Map<Class<?>, List<Field>> fields = new HashMap<>();
+    //Filled lazily from any thread, clearCache swaps in new maps rather than clearing them under readers
+    static volatile Map<Class<?>, List<Field>> fields = new ConcurrentHashMap<>();
+    static volatile Map<Class<?>, List<Field>> insertColumns = new ConcurrentHashMap<>();
+    static volatile Map<Class<?>, BindingPlan> bindingPlans = new ConcurrentHashMap<>();
 
     public static void setFields(Class<?> clazz, List<Field> fieldz) {
          fields.put(clazz, fieldz);
     }
 
     public static List<Field> getFields(Class<?> clazz) {
-        if (fields.containsKey(clazz)) {
-            List<Field> list = fields.get(clazz);
-            return Collections.synchronizedList(list);
-        }
+        List<Field> list = fields.get(clazz);
+        return (list != null) ? Collections.synchronizedList(list) : null;
+    }
+
+    public static void setInsertColumns(Class<?> clazz, List<Field> columns) {
+        insertColumns.put(clazz, columns);
+    }
+
+    public static List<Field> getInsertColumns(Class<?> clazz) {
+        return insertColumns.get(clazz);
+    }
+
+    public static void setBindingPlan(Class<?> clazz, BindingPlan bindingPlan) {
+        bindingPlans.put(clazz, bindingPlan);
+    }
 
-        return null;
+    public static BindingPlan getBindingPlan(Class<?> clazz) {
+        return bindingPlans.get(clazz);
     }
 
     public static void clearCache() {
-        fields.clear();
-        fields = new HashMap<>();
+        fields = new ConcurrentHashMap<>();
+        insertColumns = new ConcurrentHashMap<>();
+        bindingPlans = new ConcurrentHashMap<>();
     }
 
 }
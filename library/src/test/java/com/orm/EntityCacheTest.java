@@ -0,0 +1,56 @@
+package com.orm;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+public class EntityCacheTest {
+
+    @Test
+    public void leastRecentlyUsedTest() {
+        EntityCache entityCache = new EntityCache(2);
+        Object first = new Object();
+        Object second = new Object();
+        entityCache.put(1L, first, entityCache.getGeneration());
+        entityCache.put(2L, second, entityCache.getGeneration());
+
+        //Makes 2 the least recently used
+        entityCache.get(1L);
+        entityCache.put(3L, new Object(), entityCache.getGeneration());
+
+        assertEquals(2, entityCache.size());
+        assertSame(first, entityCache.get(1L));
+        assertNull(entityCache.get(2L));
+    }
+
+    @Test
+    public void countersTest() {
+        EntityCache entityCache = new EntityCache(10);
+        entityCache.put(1L, new Object(), entityCache.getGeneration());
+        entityCache.get(1L);
+        entityCache.get(1L);
+        entityCache.get(2L);
+
+        assertEquals(2L, entityCache.getHitCount());
+        assertEquals(1L, entityCache.getMissCount());
+
+        entityCache.resetCounters();
+        assertEquals(0L, entityCache.getHitCount());
+    }
+
+    @Test
+    public void staleReadTest() {
+        EntityCache entityCache = new EntityCache(10);
+        long generation = entityCache.getGeneration();
+
+        //A write clears the cache while the row is read
+        entityCache.clear();
+        entityCache.put(1L, new Object(), generation);
+        entityCache.putFirst(new Object(), generation);
+
+        assertNull(entityCache.get(1L));
+        assertNull(entityCache.getFirst());
+    }
+}
@@ -0,0 +1,46 @@
+package com.orm;
+
+import com.orm.models.AdaptedModel;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+
+public class EntityFactoryTest {
+
+    private static class PrivateModel {
+        String name = "initialized";
+
+        private PrivateModel() { }
+    }
+
+    private static class ArgumentModel {
+        ArgumentModel(String name) { }
+    }
+
+    @Test
+    public void constructorTest() throws Exception {
+        EntityFactory<PrivateModel> factory = EntityFactory.get(PrivateModel.class);
+        assertSame(factory, EntityFactory.get(PrivateModel.class));
+
+        PrivateModel first = factory.newInstance();
+        PrivateModel second = factory.newInstance();
+        assertNotSame(first, second);
+        assertEquals("initialized", first.name);
+    }
+
+    @Test
+    public void adapterTest() throws Exception {
+        AdaptedModel model = EntityFactory.get(AdaptedModel.class).newInstance();
+
+        assertEquals(AdaptedModel.class, model.getClass());
+        assertEquals(0L, model.getCount());
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void noConstructorTest() throws Exception {
+        EntityFactory.get(ArgumentModel.class);
+    }
+}
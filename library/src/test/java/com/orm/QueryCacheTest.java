@@ -0,0 +1,125 @@
+package com.orm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class QueryCacheTest {
+    @SuppressWarnings("unused")
+    public static class Shelf extends SugarRecord {
+        Room room;
+    }
+
+    @SuppressWarnings("unused")
+    public static class Room extends SugarRecord {
+        Shelf favorite;
+        String name;
+    }
+
+    private static Set<String> tables(String... tables) {
+        return new HashSet<>(Arrays.asList(tables));
+    }
+
+    @Test
+    public void keyTest() {
+        String key = QueryCache.key("count", "SELECT count(*) FROM BOOK where id = ?", new String[] {"1"});
+        assertEquals(key, QueryCache.key("count", "SELECT count(*) FROM BOOK where id = ?", new String[] {"1"}));
+        assertFalse(key.equals(QueryCache.key("count", "SELECT count(*) FROM BOOK where id = ?", new String[] {"2"})));
+        assertFalse(key.equals(QueryCache.key("com.example.Book", "SELECT count(*) FROM BOOK where id = ?", new String[] {"1"})));
+    }
+
+    @Test
+    public void tablesOfTest() {
+        Set<String> tables = QueryCache.tablesOf("SELECT b.* FROM book b JOIN Author a ON b.author = a.id WHERE a.name = ?");
+        assertTrue(tables.contains("BOOK"));
+        assertTrue(tables.contains("AUTHOR"));
+    }
+
+    @Test
+    public void tablesReadTest() {
+        //Rooms are loaded with their shelves, even through the cycle back to Shelf
+        assertEquals(tables("SHELF", "ROOM"), QueryCache.tablesRead(Shelf.class));
+        assertEquals(tables("SHELF", "ROOM"), QueryCache.tablesRead(Room.class));
+    }
+
+    @Test
+    public void invalidateTest() {
+        QueryCache queryCache = new QueryCache(10, 0);
+        Object books = new Object();
+        Object authors = new Object();
+        queryCache.put("books", books, tables("BOOK"), queryCache.getGeneration());
+        queryCache.put("authors", authors, tables("AUTHOR"), queryCache.getGeneration());
+        queryCache.put("joined", new Object(), tables("BOOK", "AUTHOR"), queryCache.getGeneration());
+
+        queryCache.invalidate("Book");
+
+        assertEquals(1, queryCache.size());
+        assertNull(queryCache.get("books"));
+        assertNull(queryCache.get("joined"));
+        assertSame(authors, queryCache.get("authors"));
+    }
+
+    @Test
+    public void leastRecentlyUsedTest() {
+        QueryCache queryCache = new QueryCache(2, 0);
+        Object first = new Object();
+        queryCache.put("first", first, tables("BOOK"), queryCache.getGeneration());
+        queryCache.put("second", new Object(), tables("BOOK"), queryCache.getGeneration());
+
+        //Makes the second result the least recently used
+        queryCache.get("first");
+        queryCache.put("third", new Object(), tables("BOOK"), queryCache.getGeneration());
+
+        assertEquals(2, queryCache.size());
+        assertSame(first, queryCache.get("first"));
+        assertNull(queryCache.get("second"));
+    }
+
+    @Test
+    public void expiryTest() throws InterruptedException {
+        QueryCache queryCache = new QueryCache(10, 1);
+        queryCache.put("books", new Object(), tables("BOOK"), queryCache.getGeneration());
+
+        Thread.sleep(5);
+
+        assertNull(queryCache.get("books"));
+        assertEquals(0, queryCache.size());
+    }
+
+    @Test
+    public void staleReadTest() {
+        QueryCache queryCache = new QueryCache(10, 0);
+        long generation = queryCache.getGeneration();
+
+        //A write invalidates the table while the result is read
+        queryCache.invalidate("BOOK");
+        queryCache.put("books", new Object(), Collections.singleton("BOOK"), generation);
+
+        assertNull(queryCache.get("books"));
+    }
+
+    @Test
+    public void countersTest() {
+        QueryCache queryCache = new QueryCache(10, 0);
+        queryCache.put("books", new Object(), tables("BOOK"), queryCache.getGeneration());
+        queryCache.get("books");
+        queryCache.get("books");
+        queryCache.get("authors");
+
+        assertEquals(2L, queryCache.getHitCount());
+        assertEquals(1L, queryCache.getMissCount());
+
+        queryCache.resetCounters();
+        assertEquals(0L, queryCache.getHitCount());
+        assertEquals(0L, queryCache.getMissCount());
+    }
+}
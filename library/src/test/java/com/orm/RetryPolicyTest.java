@@ -0,0 +1,50 @@
+package com.orm;
+
+import android.database.sqlite.SQLiteDatabaseLockedException;
+import android.database.sqlite.SQLiteException;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void backoffTest() {
+        RetryPolicy retryPolicy = new RetryPolicy(5, 100, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            long first = retryPolicy.getBackoffMillis(0);
+            assertTrue(first >= 50 && first <= 100);
+
+            long third = retryPolicy.getBackoffMillis(2);
+            assertTrue(third >= 200 && third <= 400);
+
+            long capped = retryPolicy.getBackoffMillis(10);
+            assertTrue(capped >= 500 && capped <= 1000);
+        }
+    }
+
+    @Test
+    public void busyTest() {
+        assertTrue(RetryPolicy.isBusy(new SQLiteDatabaseLockedException()));
+        assertTrue(RetryPolicy.isBusy(new RuntimeException(new SQLiteDatabaseLockedException())));
+        assertFalse(RetryPolicy.isBusy(new SQLiteException()));
+        assertFalse(RetryPolicy.isBusy(new IllegalStateException()));
+    }
+
+    @Test
+    public void countersTest() {
+        RetryPolicy retryPolicy = new RetryPolicy();
+        assertEquals(RetryPolicy.DEFAULT_MAX_RETRIES, retryPolicy.getMaxRetries());
+        assertEquals(0, retryPolicy.getRetryCount());
+        assertEquals(0, retryPolicy.getWaitedMillis());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void invalidBackoffTest() {
+        new RetryPolicy(1, 100, 10);
+    }
+}
@@ -0,0 +1,55 @@
+package com.orm;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+public class SugarSessionTest {
+
+    @Test
+    public void identityMapTest() {
+        SugarSession session = SugarSession.open();
+        try {
+            Object entity = new Object();
+            session.put(Object.class, 1L, entity);
+
+            assertSame(entity, session.get(Object.class, 1L));
+            assertNull(session.get(Object.class, 2L));
+            assertNull(session.get(String.class, 1L));
+
+            session.evict(Object.class, 1L);
+            assertFalse(session.contains(Object.class, 1L));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void closeTest() {
+        SugarSession session = SugarSession.open();
+        session.put(Object.class, 1L, new Object());
+        assertSame(session, SugarSession.current());
+
+        session.close();
+        assertNull(SugarSession.current());
+        assertFalse(session.contains(Object.class, 1L));
+    }
+
+    @Test
+    public void nestedSessionTest() {
+        SugarSession outer = SugarSession.open();
+        SugarSession inner = SugarSession.open();
+        assertSame(inner, SugarSession.current());
+
+        inner.close();
+        assertSame(outer, SugarSession.current());
+
+        SugarSession other = SugarSession.open();
+        outer.close();
+        assertSame(other, SugarSession.current());
+        other.close();
+        assertNull(SugarSession.current());
+    }
+}
@@ -0,0 +1,23 @@
+package com.orm.models;
+
+import com.orm.SugarRecord;
+
+public class AdaptedModel extends SugarRecord {
+    String name;
+    long count;
+
+    public AdaptedModel() { }
+
+    public AdaptedModel(String name, long count) {
+        this.name = name;
+        this.count = count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,62 @@
+package com.orm.models;
+
+/**
+ * The adapter the annotation processor generates for {@link AdaptedModel}, counting the calls
+ * made to it.
+ */
+public final class AdaptedModel_SugarAdapter extends com.orm.util.EntityAdapter<com.orm.models.AdaptedModel> {
+    private static final String[] FIELD_NAMES = {"name", "count", "id"};
+
+    public static int calls;
+
+    @Override
+    public String[] getFieldNames() {
+        return FIELD_NAMES.clone();
+    }
+
+    @Override
+    public com.orm.models.AdaptedModel newInstance() {
+        return new com.orm.models.AdaptedModel();
+    }
+
+    @Override
+    public Object get(com.orm.models.AdaptedModel object, int field) {
+        calls++;
+        switch (field) {
+            case 0: return object.name;
+            case 1: return object.count;
+            case 2: return object.getId();
+            default: throw new IllegalArgumentException("No field " + field);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void set(com.orm.models.AdaptedModel object, int field, Object value) {
+        calls++;
+        switch (field) {
+            case 0: object.name = (java.lang.String) value; break;
+            case 1: object.count = (java.lang.Long) value; break;
+            case 2: object.setId((java.lang.Long) value); break;
+            default: throw new IllegalArgumentException("No field " + field);
+        }
+    }
+
+    @Override
+    public long getLong(com.orm.models.AdaptedModel object, int field) {
+        calls++;
+        switch (field) {
+            case 1: return object.count;
+            default: return super.getLong(object, field);
+        }
+    }
+
+    @Override
+    public void setLong(com.orm.models.AdaptedModel object, int field, long value) {
+        calls++;
+        switch (field) {
+            case 1: object.count = value; break;
+            default: super.setLong(object, field, value);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.orm.models;
+
+import com.orm.SugarRecord;
+
+public class ReorderedModel extends SugarRecord {
+    String title;
+    long pages;
+
+    public ReorderedModel() { }
+
+    public ReorderedModel(String title, long pages) {
+        this.title = title;
+        this.pages = pages;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public long getPages() {
+        return pages;
+    }
+}
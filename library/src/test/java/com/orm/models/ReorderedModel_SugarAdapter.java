@@ -0,0 +1,39 @@
+package com.orm.models;
+
+/**
+ * An adapter of {@link ReorderedModel} listing its fields in another order than reflection
+ * returns them, as on ART, where fields come in dex order.
+ */
+public final class ReorderedModel_SugarAdapter extends com.orm.util.EntityAdapter<com.orm.models.ReorderedModel> {
+    private static final String[] FIELD_NAMES = {"id", "pages", "title"};
+
+    @Override
+    public String[] getFieldNames() {
+        return FIELD_NAMES.clone();
+    }
+
+    @Override
+    public com.orm.models.ReorderedModel newInstance() {
+        return new com.orm.models.ReorderedModel();
+    }
+
+    @Override
+    public Object get(com.orm.models.ReorderedModel object, int field) {
+        switch (field) {
+            case 0: return object.getId();
+            case 1: return object.pages;
+            case 2: return object.title;
+            default: throw new IllegalArgumentException("No field " + field);
+        }
+    }
+
+    @Override
+    public void set(com.orm.models.ReorderedModel object, int field, Object value) {
+        switch (field) {
+            case 0: object.setId((java.lang.Long) value); break;
+            case 1: object.pages = (java.lang.Long) value; break;
+            case 2: object.title = (java.lang.String) value; break;
+            default: throw new IllegalArgumentException("No field " + field);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.orm.query;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class AggregateResultTest {
+
+    @Test
+    public void toSqlTest() {
+        assertEquals("TOTAL(PRICE)", Aggregate.SUM.toSql("PRICE"));
+        assertEquals("COUNT(*)", Aggregate.COUNT.toSql(null));
+    }
+
+    @Test
+    public void getTest() {
+        AggregateResult result = new AggregateResult(1, new String[] {"a", null}, new double[] {1.5, 2.0});
+        assertEquals(2, result.size());
+        assertEquals(1.5, result.get("a"));
+        assertEquals(2.0, result.get((String) null));
+        assertTrue(Double.isNaN(result.get("b")));
+    }
+
+    @Test
+    public void multipleColumnsTest() {
+        //Values holding the separator of joined keys stay apart
+        AggregateResult result = new AggregateResult(2, new String[] {"a,b", "c", "a", "b,c"}, new double[] {1.0, 2.0});
+        assertEquals(1.0, result.get("a,b", "c"));
+        assertEquals(2.0, result.get("a", "b,c"));
+        assertTrue(Double.isNaN(result.get("a")));
+        assertEquals(Arrays.asList("a", "b,c"), result.getKey(1));
+        assertEquals("b,c", result.getKey(1, 1));
+    }
+}
@@ -4,6 +4,8 @@ import com.orm.util.QueryBuilder;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static junit.framework.Assert.assertEquals;
 
 public class QueryBuilderTests {
@@ -27,4 +29,50 @@ public class QueryBuilderTests {
     public void manyArgumentsTest() {
         assertEquals("?,?,?,?,?,?,?,?,?,?", QueryBuilder.generatePlaceholders(10));
     }
+
+    @Test
+    public void insertSQLTest() {
+        assertEquals("INSERT OR REPLACE INTO TEST_RECORD (NAME,ID) VALUES (?,?)",
+                QueryBuilder.getInsertSQL("TEST_RECORD", Arrays.asList("NAME", "ID")));
+    }
+
+    @Test
+    public void multiRowInsertSQLTest() {
+        assertEquals("INSERT OR REPLACE INTO TEST_RECORD (NAME,ID) VALUES (?,?),(?,?),(?,?)",
+                QueryBuilder.getInsertSQL("TEST_RECORD", Arrays.asList("NAME", "ID"), 3));
+    }
+
+    @Test(expected=RuntimeException.class)
+    public void noRowsInsertSQLTest() {
+        QueryBuilder.getInsertSQL("TEST_RECORD", Arrays.asList("NAME", "ID"), 0);
+    }
+
+    @Test
+    public void insertOrIgnoreSQLTest() {
+        assertEquals("INSERT OR IGNORE INTO BOOK_PAGE (BOOK_ID,PAGE_ID) VALUES (?,?)",
+                QueryBuilder.getInsertOrIgnoreSQL("BOOK_PAGE", Arrays.asList("BOOK_ID", "PAGE_ID")));
+    }
+
+    @Test
+    public void updateSQLTest() {
+        assertEquals("UPDATE TEST_RECORD SET NAME=?,AGE=? WHERE ID=?",
+                QueryBuilder.getUpdateSQL("TEST_RECORD", Arrays.asList("NAME", "AGE")));
+    }
+
+    @Test
+    public void upsertSQLTest() {
+        assertEquals("INSERT INTO TEST_RECORD (NAME,AGE,ID) VALUES (?,?,?),(?,?,?) ON CONFLICT(ID) DO UPDATE SET NAME=excluded.NAME,AGE=excluded.AGE",
+                QueryBuilder.getUpsertSQL("TEST_RECORD", Arrays.asList("NAME", "AGE", "ID"), 2));
+    }
+
+    @Test
+    public void idOnlyUpsertSQLTest() {
+        assertEquals("INSERT INTO TEST_RECORD (ID) VALUES (?) ON CONFLICT(ID) DO NOTHING",
+                QueryBuilder.getUpsertSQL("TEST_RECORD", Arrays.asList("ID"), 1));
+    }
+
+    @Test
+    public void deleteSQLTest() {
+        assertEquals("DELETE FROM TEST_RECORD WHERE ID IN (?,?,?)", QueryBuilder.getDeleteSQL("TEST_RECORD", 3));
+    }
 }
@@ -3,6 +3,7 @@ package com.orm.query;
 import org.junit.Test;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 
 public class SelectTest {
 
@@ -35,6 +36,34 @@ public class SelectTest {
         assertEquals("2", where.getArgs()[1]);
     }
 
+    @Test
+    public void testAfterKey() {
+        Select select = Select.from(TestRecord.class).orderBy("NAME DESC").afterKey(7, "sugar");
+        assertEquals("NAME <= ? AND ((NAME < ?) OR (NAME = ? AND ID > ?))", select.getWhereCond());
+        assertEquals("sugar", select.getArgs()[0]);
+        assertEquals("7", select.getArgs()[3]);
+        assertTrue(select.toSql().contains("ORDER BY NAME DESC, ID "));
+    }
+
+    @Test
+    public void testAfterEntity() {
+        TestRecord last = new TestRecord();
+        last.setId(3L);
+
+        Select select = Select.from(TestRecord.class).where(Condition.prop("test").eq("satya")).after(last);
+        assertEquals("((test = ? )) AND (ID >= ? AND ((ID > ?)))", select.getWhereCond());
+        assertEquals(3, select.getArgs().length);
+        assertEquals("3", select.getArgs()[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAfterNullValue() {
+        TestRecord last = new TestRecord();
+        last.setId(3L);
+
+        Select.from(TestRecord.class).orderBy("NAME").after(last);
+    }
+
     @Test
     public void toSqlAllClauses(){
         String toSql = Select.from(TestRecord.class)
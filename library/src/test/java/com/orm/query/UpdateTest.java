@@ -0,0 +1,47 @@
+package com.orm.query;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+public class UpdateTest {
+
+    @Test
+    public void toSqlNoConditions() {
+        Update update = Update.table(TestRecord.class).set("name", "satya");
+        assertEquals("UPDATE TEST_RECORD SET name = ? ", update.toSql());
+        assertEquals(1, update.getArgs().length);
+        assertEquals("satya", update.getArgs()[0]);
+    }
+
+    @Test
+    public void toSqlConditions() {
+        Update update = Update.table(TestRecord.class)
+                .set("name", "satya")
+                .set("prop", 2)
+                .where(Condition.prop("test").eq("foo"), Condition.prop("other").gt(3))
+                .or(Condition.prop("none").isNull());
+        assertEquals("UPDATE TEST_RECORD SET name = ?,prop = ? WHERE (test = ?  AND other > ? ) OR (none IS NULL ) ", update.toSql());
+        assertEquals(4, update.getArgs().length);
+        assertEquals("satya", update.getArgs()[0]);
+        assertEquals(2, update.getArgs()[1]);
+        assertEquals("foo", update.getArgs()[2]);
+        assertEquals("3", update.getArgs()[3]);
+    }
+
+    @Test
+    public void toSqlWhereArguments() {
+        Update update = Update.table(TestRecord.class)
+                .set("name", null)
+                .where("test = ?", new String[]{"foo"});
+        assertEquals("UPDATE TEST_RECORD SET name = ? WHERE test = ? ", update.toSql());
+        assertEquals(2, update.getArgs().length);
+        assertEquals(null, update.getArgs()[0]);
+        assertEquals("foo", update.getArgs()[1]);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void toSqlNoColumns() {
+        Update.table(TestRecord.class).toSql();
+    }
+}
@@ -0,0 +1,64 @@
+package com.orm.util;
+
+import com.orm.models.AdaptedModel;
+import com.orm.models.AdaptedModel_SugarAdapter;
+import com.orm.models.EmptyModel;
+import com.orm.models.ReorderedModel;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class BindingPlanTest {
+
+    @Test
+    public void adapterTest() throws Exception {
+        BindingPlan bindingPlan = BindingPlan.get(AdaptedModel.class);
+        assertNotNull(bindingPlan.getAdapter());
+
+        AdaptedModel model = new AdaptedModel("sugar", 3L);
+        model.setId(7L);
+        AdaptedModel_SugarAdapter.calls = 0;
+
+        ColumnBinder[] binders = bindingPlan.getInsertBinders();
+        assertEquals(2, binders.length);
+        assertEquals("sugar", binders[0].getValue(model, Collections.<Object, Long>emptyMap()));
+        assertEquals(3L, binders[1].getValue(model, Collections.<Object, Long>emptyMap()));
+        assertEquals(7L, bindingPlan.getIdBinder().get(model));
+
+        bindingPlan.getIdBinder().set(model, 8L);
+        assertEquals(Long.valueOf(8L), model.getId());
+        assertEquals(4, AdaptedModel_SugarAdapter.calls);
+    }
+
+    @Test
+    public void reorderedAdapterTest() throws Exception {
+        BindingPlan bindingPlan = BindingPlan.get(ReorderedModel.class);
+        assertNotNull(bindingPlan.getAdapter());
+
+        ReorderedModel model = new ReorderedModel("sugar", 3L);
+        model.setId(7L);
+
+        ColumnBinder[] binders = bindingPlan.getInsertBinders();
+        assertEquals(2, binders.length);
+        assertEquals("sugar", binders[0].getValue(model, Collections.<Object, Long>emptyMap()));
+        assertEquals(3L, binders[1].getValue(model, Collections.<Object, Long>emptyMap()));
+        assertEquals(7L, bindingPlan.getIdBinder().get(model));
+    }
+
+    @Test
+    public void reflectionTest() throws Exception {
+        BindingPlan bindingPlan = BindingPlan.get(EmptyModel.class);
+        assertNull(bindingPlan.getAdapter());
+
+        EmptyModel model = new EmptyModel();
+        model.setId(5L);
+        assertEquals(5L, bindingPlan.getIdBinder().get(model));
+        assertTrue(bindingPlan.getInsertBinders().length == 0);
+    }
+}
@@ -0,0 +1,54 @@
+package com.orm.util;
+
+import com.orm.Ref;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+
+public class ColumnBinderTest {
+    private static final Map<Object, Long> NO_ENTITIES = Collections.emptyMap();
+
+    private enum Color { RED }
+
+    @SuppressWarnings("unused")
+    private static class Sample {
+        Long id = 4L;
+        int count = 3;
+        Integer boxedCount;
+        boolean flag = true;
+        float ratio = 0.5f;
+        String name = "sugar";
+        BigDecimal price = new BigDecimal("1.25");
+        Date date = new Date(1000L);
+        Color color = Color.RED;
+        Ref<Sample> ref = Ref.to(Sample.class, 5L);
+    }
+
+    private static Object getValue(String fieldName) throws Exception {
+        ColumnBinder binder = ColumnBinder.forField(Sample.class.getDeclaredField(fieldName));
+        assertFalse(binder.isReference());
+        return binder.getValue(new Sample(), NO_ENTITIES);
+    }
+
+    @Test
+    public void valueTest() throws Exception {
+        assertEquals(4L, getValue("id"));
+        assertEquals(3L, getValue("count"));
+        assertNull(getValue("boxedCount"));
+        assertEquals(1L, getValue("flag"));
+        assertEquals(0.5d, getValue("ratio"));
+        assertEquals("sugar", getValue("name"));
+        assertEquals("1.25", getValue("price"));
+        assertEquals(1000L, getValue("date"));
+        assertEquals("RED", getValue("color"));
+        assertEquals(5L, getValue("ref"));
+    }
+}
@@ -0,0 +1,338 @@
+package com.orm.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code com.orm.util.EntityAdapter} for every {@code SugarRecord} subclass and
+ * every {@code @Table} class, so their rows are mapped without reflection.
+ *
+ * The adapter lives in the package of the entity and reads fields directly, or through their
+ * getter and setter when they are not visible from the package. Relationship fields have to be
+ * visible, as their getters commonly load lazily. Entities with a field the adapter cannot
+ * reach, or without a visible no-arg constructor, get no adapter and are mapped through
+ * reflection.
+ */
+@SupportedAnnotationTypes("*")
+public class AdapterProcessor extends AbstractProcessor {
+    private static final String SUGAR_RECORD = "com.orm.SugarRecord";
+    private static final String TABLE = "com.orm.dsl.Table";
+    private static final String IGNORE = "com.orm.dsl.Ignore";
+    private static final String RELATIONSHIP = "com.orm.dsl.Relationship";
+    private static final String ADAPTER = "com.orm.util.EntityAdapter";
+    private static final String SUFFIX = "_SugarAdapter";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        List<TypeElement> types = new ArrayList<>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collectTypes(type, types);
+        }
+
+        for (TypeElement type : types) {
+            if (isEntity(type)) {
+                generateAdapter(type);
+            }
+        }
+
+        //Annotations are left to other processors
+        return false;
+    }
+
+    private static void collectTypes(TypeElement type, List<TypeElement> types) {
+        types.add(type);
+        for (TypeElement member : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collectTypes(member, types);
+        }
+    }
+
+    private boolean isEntity(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+
+        if (hasAnnotation(type, TABLE)) {
+            return true;
+        }
+
+        for (TypeElement superclass = getSuperclass(type); superclass != null; superclass = getSuperclass(superclass)) {
+            if (superclass.getQualifiedName().contentEquals(SUGAR_RECORD)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void generateAdapter(TypeElement type) {
+        String packageName = getPackage(type).getQualifiedName().toString();
+        String entityName = type.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String adapterName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+
+        if (!isVisible(type, packageName) || !type.getTypeParameters().isEmpty() || !hasVisibleConstructor(type, packageName)) {
+            note(type, "is generic or has no visible no-arg constructor, it is mapped through reflection");
+            return;
+        }
+
+        List<FieldAccess> fields = new ArrayList<>();
+        for (TypeElement declaring = type; declaring != null; declaring = getSuperclass(declaring)) {
+            for (VariableElement field : ElementFilter.fieldsIn(declaring.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT) || hasAnnotation(field, IGNORE)) {
+                    continue;
+                }
+
+                FieldAccess access = getAccess(type, field, packageName);
+                if (access == null) {
+                    note(type, "field " + field.getSimpleName() + " is not visible and has no getter and setter to use, it is mapped through reflection");
+                    return;
+                }
+                fields.add(access);
+            }
+        }
+
+        String source = writeAdapter(packageName, adapterName, entityName, fields);
+        String qualifiedAdapterName = packageName.isEmpty() ? adapterName : packageName + "." + adapterName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedAdapterName, type).openWriter()) {
+            writer.write(source);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + qualifiedAdapterName + ": " + e.getMessage(), type);
+        }
+    }
+
+    private static String writeAdapter(String packageName, String adapterName, String entityName, List<FieldAccess> fields) {
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+
+        sb.append("/**\n * Generated by the Sugar ORM annotation processor. Do not edit.\n */\n");
+        sb.append("public final class ").append(adapterName).append(" extends ").append(ADAPTER).append('<').append(entityName).append("> {\n");
+
+        sb.append("    private static final String[] FIELD_NAMES = {");
+        for (int i = 0; i < fields.size(); i++) {
+            sb.append(i > 0 ? ", " : "").append('"').append(fields.get(i).name).append('"');
+        }
+        sb.append("};\n\n");
+
+        sb.append("    @Override\n    public String[] getFieldNames() {\n        return FIELD_NAMES.clone();\n    }\n\n");
+        sb.append("    @Override\n    public ").append(entityName).append(" newInstance() {\n        return new ").append(entityName).append("();\n    }\n\n");
+
+        sb.append("    @Override\n    public Object get(").append(entityName).append(" object, int field) {\n        switch (field) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            sb.append("            case ").append(i).append(": return ").append(fields.get(i).read).append(";\n");
+        }
+        sb.append("            default: throw new IllegalArgumentException(\"No field \" + field);\n        }\n    }\n\n");
+
+        sb.append("    @Override\n    @SuppressWarnings(\"unchecked\")\n    public void set(").append(entityName).append(" object, int field, Object value) {\n        switch (field) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            FieldAccess field = fields.get(i);
+            sb.append("            case ").append(i).append(": ").append(field.write("(" + field.boxedType + ") value")).append("; break;\n");
+        }
+        sb.append("            default: throw new IllegalArgumentException(\"No field \" + field);\n        }\n    }\n");
+
+        writePrimitiveAccessors(sb, entityName, fields, "long", "Long");
+        writePrimitiveAccessors(sb, entityName, fields, "int", "Int");
+        writePrimitiveAccessors(sb, entityName, fields, "double", "Double");
+
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Overrides the typed accessors for the primitive fields of the type, so they are not boxed.
+     */
+    private static void writePrimitiveAccessors(StringBuilder sb, String entityName, List<FieldAccess> fields,
+                                                String primitiveType, String suffix) {
+        StringBuilder getCases = new StringBuilder();
+        StringBuilder setCases = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            FieldAccess field = fields.get(i);
+            if (field.type.equals(primitiveType)) {
+                getCases.append("            case ").append(i).append(": return ").append(field.read).append(";\n");
+                setCases.append("            case ").append(i).append(": ").append(field.write("value")).append("; break;\n");
+            }
+        }
+
+        if (getCases.length() == 0) {
+            return;
+        }
+
+        sb.append("\n    @Override\n    public ").append(primitiveType).append(" get").append(suffix).append('(')
+                .append(entityName).append(" object, int field) {\n        switch (field) {\n")
+                .append(getCases)
+                .append("            default: return super.get").append(suffix).append("(object, field);\n        }\n    }\n");
+
+        sb.append("\n    @Override\n    public void set").append(suffix).append('(')
+                .append(entityName).append(" object, int field, ").append(primitiveType).append(" value) {\n        switch (field) {\n")
+                .append(setCases)
+                .append("            default: super.set").append(suffix).append("(object, field, value);\n        }\n    }\n");
+    }
+
+    /**
+     * Finds how the adapter can read and write the field: directly, or through its getter and
+     * setter.
+     *
+     * @return the access, or null if the adapter cannot reach the field
+     */
+    private FieldAccess getAccess(TypeElement type, VariableElement field, String packageName) {
+        Types types = processingEnv.getTypeUtils();
+        DeclaredType entityType = (DeclaredType) type.asType();
+        String name = field.getSimpleName().toString();
+        //The type of an inherited field as the entity sees it, with the type arguments of its superclasses
+        TypeMirror fieldType = types.asMemberOf(entityType, field);
+        String typeName = fieldType.toString();
+        String boxedType = fieldType.getKind().isPrimitive()
+                ? types.boxedClass((PrimitiveType) fieldType).getQualifiedName().toString()
+                : types.erasure(fieldType).toString();
+
+        if (isVisible(field, packageName) && !field.getModifiers().contains(Modifier.FINAL)) {
+            return new FieldAccess(name, typeName, boxedType, "object." + name, "object." + name + " = %s");
+        }
+
+        //Relationship getters commonly load lazily, reading the field through them would query
+        if (hasAnnotation(field, RELATIONSHIP)) {
+            return null;
+        }
+
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        ExecutableElement getter = null;
+        ExecutableElement setter = null;
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            String methodName = method.getSimpleName().toString();
+            if (method.getModifiers().contains(Modifier.STATIC) || !isVisible(method, packageName)) {
+                continue;
+            }
+
+            ExecutableType methodType = (ExecutableType) types.asMemberOf(entityType, method);
+            if ((methodName.equals("get" + capitalized) || methodName.equals("is" + capitalized)) && method.getParameters().isEmpty()
+                    && types.isSameType(methodType.getReturnType(), fieldType)) {
+                getter = method;
+            } else if (methodName.equals("set" + capitalized) && method.getParameters().size() == 1
+                    && types.isSameType(methodType.getParameterTypes().get(0), fieldType)) {
+                setter = method;
+            }
+        }
+
+        if (getter == null || setter == null) {
+            return null;
+        }
+
+        return new FieldAccess(name, typeName, boxedType,
+                "object." + getter.getSimpleName() + "()", "object." + setter.getSimpleName() + "(%s)");
+    }
+
+    private static boolean hasVisibleConstructor(TypeElement type, String packageName) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return isVisible(constructor, packageName);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tells if code in the package can use the element. Protected members of superclasses in
+     * other packages are not, as the adapter is no subclass.
+     */
+    private static boolean isVisible(Element element, String packageName) {
+        for (Element e = element; e != null && e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            Set<Modifier> modifiers = e.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!modifiers.contains(Modifier.PUBLIC) && !getPackage(e).getQualifiedName().contentEquals(packageName)) {
+                return false;
+            }
+            if (e instanceof TypeElement && ((TypeElement) e).getNestingKind() == NestingKind.MEMBER
+                    && !modifiers.contains(Modifier.STATIC)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static PackageElement getPackage(Element element) {
+        Element e = element;
+        while (e.getKind() != ElementKind.PACKAGE) {
+            e = e.getEnclosingElement();
+        }
+        return (PackageElement) e;
+    }
+
+    private static TypeElement getSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void note(TypeElement type, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, type.getSimpleName() + " " + message, type);
+    }
+
+    private static class FieldAccess {
+        final String name;
+        final String type;
+        final String boxedType;
+        final String read;
+        final String writeFormat;
+
+        FieldAccess(String name, String type, String boxedType, String read, String writeFormat) {
+            this.name = name;
+            this.type = type;
+            this.boxedType = boxedType;
+            this.read = read;
+            this.writeFormat = writeFormat;
+        }
+
+        String write(String value) {
+            return String.format(writeFormat, value);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.orm.processor;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Compiles sample entities with the processor, against the library sources the generated
+ * adapters use, and maps values through the adapters it generates.
+ */
+public class AdapterProcessorTest {
+    private static final String LIBRARY_SOURCES = System.getProperty("sugar.library.src", "../library/src/main/java");
+
+    private static final String LOG = "package android.util;\n"
+            + "public final class Log {\n"
+            + "    public static int e(String tag, String msg, Throwable tr) { return 0; }\n"
+            + "}\n";
+
+    //Only the fields of SugarRecord matter to the processor
+    private static final String SUGAR_RECORD = "package com.orm;\n"
+            + "public class SugarRecord {\n"
+            + "    public static final String SUGAR = \"Sugar\";\n"
+            + "    private Long id = null;\n"
+            + "    public Long getId() { return id; }\n"
+            + "    public void setId(Long id) { this.id = id; }\n"
+            + "}\n";
+
+    private static JavaFileObject source(final String className, final String code) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    /**
+     * Compiles the sources along with the processor and returns a loader of the compiled classes,
+     * generated adapters included.
+     */
+    private static ClassLoader compile(JavaFileObject... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        File output = Files.createTempDirectory("sugar-processor").toFile();
+
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.US, null)) {
+            List<JavaFileObject> units = new ArrayList<>(Arrays.asList(sources));
+            units.add(source("android.util.Log", LOG));
+            units.add(source("com.orm.SugarRecord", SUGAR_RECORD));
+            List<File> libraryFiles = new ArrayList<>();
+            libraryFiles.add(new File(LIBRARY_SOURCES, "com/orm/util/EntityAdapter.java"));
+            for (String annotation : new String[] {"Table", "Ignore", "Relationship"}) {
+                libraryFiles.add(new File(LIBRARY_SOURCES, "com/orm/dsl/" + annotation + ".java"));
+            }
+            for (JavaFileObject libraryFile : fileManager.getJavaFileObjectsFromFiles(libraryFiles)) {
+                units.add(libraryFile);
+            }
+
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-d", output.getPath(), "-s", output.getPath()), null, units);
+            task.setProcessors(Collections.singletonList(new AdapterProcessor()));
+            if (!task.call()) {
+                StringBuilder errors = new StringBuilder();
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    errors.append(diagnostic).append('\n');
+                }
+                fail("Compilation failed:\n" + errors);
+            }
+        }
+
+        return new URLClassLoader(new URL[] {output.toURI().toURL()}, AdapterProcessorTest.class.getClassLoader());
+    }
+
+    private static Object newAdapter(ClassLoader loader, String entityName) throws Exception {
+        return loader.loadClass(entityName + "_SugarAdapter").newInstance();
+    }
+
+    private static int indexOf(Object adapter, String fieldName) throws Exception {
+        String[] fieldNames = (String[]) adapter.getClass().getMethod("getFieldNames").invoke(adapter);
+        int index = Arrays.asList(fieldNames).indexOf(fieldName);
+        assertTrue("No adapted field " + fieldName, index >= 0);
+        return index;
+    }
+
+    /**
+     * Sets the field through the adapter, and reads it back.
+     */
+    private static Object roundTrip(Object adapter, Object entity, String fieldName, Object value) throws Exception {
+        int index = indexOf(adapter, fieldName);
+        adapter.getClass().getMethod("set", Object.class, int.class, Object.class).invoke(adapter, entity, index, value);
+        return adapter.getClass().getMethod("get", Object.class, int.class).invoke(adapter, entity, index);
+    }
+
+    private static Object newInstance(Object adapter) throws Exception {
+        return adapter.getClass().getMethod("newInstance").invoke(adapter);
+    }
+
+    @Test
+    public void plainEntityTest() throws Exception {
+        ClassLoader loader = compile(source("com.example.Book", "package com.example;\n"
+                + "public class Book extends com.orm.SugarRecord {\n"
+                + "    public String title;\n"
+                + "    public int pages;\n"
+                + "    public double price;\n"
+                + "    public transient String cached;\n"
+                + "}\n"));
+
+        Object adapter = newAdapter(loader, "com.example.Book");
+        Object book = newInstance(adapter);
+        assertEquals("com.example.Book", book.getClass().getName());
+        assertEquals(Arrays.asList("title", "pages", "price", "id"),
+                Arrays.asList((String[]) adapter.getClass().getMethod("getFieldNames").invoke(adapter)));
+
+        assertEquals("Title", roundTrip(adapter, book, "title", "Title"));
+        assertEquals(12, roundTrip(adapter, book, "pages", 12));
+        assertEquals(9.5, roundTrip(adapter, book, "price", 9.5));
+        assertEquals(7L, roundTrip(adapter, book, "id", 7L));
+        assertEquals("Title", book.getClass().getField("title").get(book));
+
+        Method setInt = adapter.getClass().getMethod("setInt", Object.class, int.class, int.class);
+        Method getInt = adapter.getClass().getMethod("getInt", Object.class, int.class);
+        setInt.invoke(adapter, book, indexOf(adapter, "pages"), 30);
+        assertEquals(30, getInt.invoke(adapter, book, indexOf(adapter, "pages")));
+    }
+
+    @Test
+    public void privateFieldTest() throws Exception {
+        ClassLoader loader = compile(source("com.example.Note", "package com.example;\n"
+                + "public class Note extends com.orm.SugarRecord {\n"
+                + "    private String text;\n"
+                + "    private boolean read;\n"
+                + "    public String getText() { return text; }\n"
+                + "    public void setText(String text) { this.text = text; }\n"
+                + "    public boolean isRead() { return read; }\n"
+                + "    public void setRead(boolean read) { this.read = read; }\n"
+                + "}\n"));
+
+        Object adapter = newAdapter(loader, "com.example.Note");
+        Object note = newInstance(adapter);
+        assertEquals("Text", roundTrip(adapter, note, "text", "Text"));
+        assertEquals(true, roundTrip(adapter, note, "read", true));
+        assertEquals("Text", note.getClass().getMethod("getText").invoke(note));
+    }
+
+    @Test
+    public void inheritedFieldTest() throws Exception {
+        ClassLoader loader = compile(
+                source("com.example.Named", "package com.example;\n"
+                        + "public abstract class Named extends com.orm.SugarRecord {\n"
+                        + "    public String name;\n"
+                        + "}\n"),
+                source("com.example.Author", "package com.example;\n"
+                        + "public class Author extends Named {\n"
+                        + "    public long born;\n"
+                        + "}\n"));
+
+        Object adapter = newAdapter(loader, "com.example.Author");
+        Object author = newInstance(adapter);
+        assertEquals("Name", roundTrip(adapter, author, "name", "Name"));
+        assertEquals(1900L, roundTrip(adapter, author, "born", 1900L));
+    }
+
+    @Test
+    public void genericBaseTest() throws Exception {
+        ClassLoader loader = compile(
+                source("com.example.Base", "package com.example;\n"
+                        + "public class Base<T> extends com.orm.SugarRecord {\n"
+                        + "    public T payload;\n"
+                        + "    private T secret;\n"
+                        + "    public T getSecret() { return secret; }\n"
+                        + "    public void setSecret(T secret) { this.secret = secret; }\n"
+                        + "}\n"),
+                source("com.example.Sub", "package com.example;\n"
+                        + "public class Sub extends Base<String> {\n"
+                        + "}\n"));
+
+        Object adapter = newAdapter(loader, "com.example.Sub");
+        Object sub = newInstance(adapter);
+        assertEquals("Payload", roundTrip(adapter, sub, "payload", "Payload"));
+        assertEquals("Secret", roundTrip(adapter, sub, "secret", "Secret"));
+    }
+
+    @Test
+    public void nestedClassTest() throws Exception {
+        ClassLoader loader = compile(source("com.example.Library", "package com.example;\n"
+                + "public class Library {\n"
+                + "    @com.orm.dsl.Table\n"
+                + "    public static class Shelf {\n"
+                + "        public Long id;\n"
+                + "        public int size;\n"
+                + "    }\n"
+                + "}\n"));
+
+        Object adapter = newAdapter(loader, "com.example.Library$Shelf");
+        Object shelf = newInstance(adapter);
+        assertEquals("com.example.Library$Shelf", shelf.getClass().getName());
+        assertEquals(4, roundTrip(adapter, shelf, "size", 4));
+        assertEquals(2L, roundTrip(adapter, shelf, "id", 2L));
+    }
+
+    @Test
+    public void unreachableFieldTest() throws Exception {
+        ClassLoader loader = compile(source("com.example.Hidden", "package com.example;\n"
+                + "public class Hidden extends com.orm.SugarRecord {\n"
+                + "    private String text;\n"
+                + "}\n"));
+
+        try {
+            newAdapter(loader, "com.example.Hidden");
+            fail();
+        } catch (ClassNotFoundException e) {
+            //Expected, the class is mapped through reflection
+        }
+    }
+}